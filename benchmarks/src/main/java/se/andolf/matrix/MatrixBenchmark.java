@@ -0,0 +1,75 @@
+package se.andolf.matrix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Products of dense square matrices, sequential and split over the common
+ * pool. Above 1024 the products use Strassen, compare them with blocked,
+ * the classical kernel on its own, when tuning the cutover. Sparse
+ * operands are measured in {@link SparseMatrixBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MatrixBenchmark {
+
+    @Param({"64", "256", "1024", "2048"})
+    private int size;
+
+    private Matrix left;
+    private Matrix right;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        left = random(size, 1.0, random);
+        right = random(size, 1.0, random);
+    }
+
+    @Benchmark
+    public Matrix sequential() {
+        return left.multiply(right, Parallelism.sequential());
+    }
+
+    @Benchmark
+    public Matrix parallel() {
+        return left.multiply(right, Parallelism.commonPool());
+    }
+
+    @Benchmark
+    public Matrix blocked() {
+        final Matrix product = new Matrix(size, size);
+        BlockedMultiplication.multiply(left, right, product);
+        return product;
+    }
+
+    @Benchmark
+    public LongMatrix toLong() {
+        return left.multiplyToLong(right);
+    }
+
+    static Matrix random(int size, double density, Random random) {
+        final Matrix matrix = new Matrix(size, size);
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                if (random.nextDouble() < density)
+                    matrix.set(i, j, random.nextInt(100) - 50);
+        return matrix;
+    }
+}
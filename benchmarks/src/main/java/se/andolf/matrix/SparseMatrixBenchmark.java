@@ -0,0 +1,50 @@
+package se.andolf.matrix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Products of a sparse and a dense square matrix, where the density is
+ * the share of non zero cells in the sparse operand.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SparseMatrixBenchmark {
+
+    @Param({"64", "256", "1024", "2048"})
+    private int size;
+
+    @Param({"0.01", "0.1", "1.0"})
+    private double density;
+
+    private SparseMatrix left;
+    private Matrix right;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        left = SparseMatrix.of(MatrixBenchmark.random(size, density, random));
+        right = MatrixBenchmark.random(size, 1.0, random);
+    }
+
+    @Benchmark
+    public Matrix sparse() {
+        return left.multiply(right);
+    }
+}
@@ -0,0 +1,67 @@
+package se.andolf.tutorials.algorithms;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The linear and the divide and conquer peak search, and the maximum,
+ * over sorted input where the only peak is at the end and over random
+ * input that is full of peaks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PeakFinderBenchmark {
+
+    @Param({"1024", "1048576", "16777216"})
+    private int size;
+
+    @Param({"sorted", "random"})
+    private String shape;
+
+    private int[] numbers;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        numbers = random.ints(size).toArray();
+        if ("sorted".equals(shape))
+            Arrays.sort(numbers);
+    }
+
+    @Benchmark
+    public int straightForward() {
+        return PeakFinder.straightForward(numbers);
+    }
+
+    @Benchmark
+    public int divideAndConquer() {
+        return PeakFinder.divideAndConquer(numbers);
+    }
+
+    @Benchmark
+    public int maximum() {
+        return PeakFinder.maximum(numbers);
+    }
+
+    @Benchmark
+    public IntList findAllPeaks() {
+        return PeakFinder.findAllPeaks(numbers);
+    }
+}
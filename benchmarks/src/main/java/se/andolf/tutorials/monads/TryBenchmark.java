@@ -0,0 +1,132 @@
+package se.andolf.tutorials.monads;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a batch of numeric fields through a short pipeline, where the
+ * failure rate is the share of fields that don't parse. Compares Try with
+ * the fused LazyTry, built per field or as one reusable pipeline, and the
+ * unboxed IntTry, look at gc.alloc.rate.norm for the allocation per field.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TryBenchmark {
+
+    private static final int FIELDS = 1024;
+
+    @Param({"0.0", "0.1", "0.9"})
+    private double failureRate;
+
+    private String[] fields;
+    private Try<Integer> failure;
+    private LazyTry.Pipeline<String, Integer> pipeline;
+
+    @Setup
+    public void setup() {
+        failure = Try.failure(new IllegalStateException());
+        pipeline = LazyTry.<String>pipeline()
+                .map(Integer::valueOf)
+                .map(x -> x * 2)
+                .filter(x -> x % 3 != 0)
+                .map(x -> x + 1);
+        fields = new String[FIELDS];
+        final int failures = (int) (FIELDS * failureRate);
+        for (int i = 0; i < FIELDS; i++)
+            fields[i] = i < failures ? "x" + i : String.valueOf(i);
+        /* Spread the failures out so that branch prediction doesn't learn them */
+        final Random random = new Random(42);
+        for (int i = FIELDS - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final String field = fields[i];
+            fields[i] = fields[j];
+            fields[j] = field;
+        }
+    }
+
+    @Benchmark
+    public int tryPipeline() {
+        int sum = 0;
+        for (String field : fields) {
+            sum += Try.ofThrowable(() -> Integer.valueOf(field))
+                    .map(x -> x * 2)
+                    .filter(x -> x % 3 != 0)
+                    .map(x -> x + 1)
+                    .orElse(0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int lazyTryPipeline() {
+        int sum = 0;
+        for (String field : fields) {
+            sum += LazyTry.ofThrowable(() -> Integer.valueOf(field))
+                    .map(x -> x * 2)
+                    .filter(x -> x % 3 != 0)
+                    .map(x -> x + 1)
+                    .orElse(0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int lazyPipeline() {
+        int sum = 0;
+        for (String field : fields) {
+            sum += pipeline.orElse(field, 0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int intTryPipeline() {
+        int sum = 0;
+        for (String field : fields) {
+            sum += IntTry.ofThrowable(() -> Integer.parseInt(field))
+                    .map(x -> x * 2)
+                    .filter(x -> x % 3 != 0)
+                    .map(x -> x + 1)
+                    .orElse(0);
+        }
+        return sum;
+    }
+
+    /**
+     * Failures passed down a long chain, the case where Failure.map used to
+     * allocate a new Failure at every step.
+     */
+    @Benchmark
+    public Try<Integer> failureChain() {
+        Try<Integer> t = failure;
+        for (int i = 0; i < 16; i++)
+            t = t.map(x -> x + 1);
+        return t;
+    }
+
+    @Benchmark
+    public int filterMismatch() {
+        int misses = 0;
+        for (int i = 0; i < FIELDS; i++) {
+            if (!Try.successful(i).filter(x -> x < 0).isSuccessful())
+                misses++;
+        }
+        return misses;
+    }
+}
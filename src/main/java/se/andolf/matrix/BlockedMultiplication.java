@@ -0,0 +1,408 @@
+package se.andolf.matrix;
+
+/*
+    Classical matrix product, C += A * B
+
+    The naive version walks B column by column which means that every
+    read of B jumps a full row ahead in memory. Here we use i-k-j loop
+    order instead, so the innermost loop walks a row of B and a row of C
+    side by side, and we tile k and j into blocks so that the touched part
+    of B stays in the cache while we sweep over the rows of A.
+
+    The kernel works directly on the flat buffers of the matrices, so it
+    accepts views as well, and it adds into C rather than overwriting it.
+
+    Each tile of B is packed into its own zero based rows, and each row
+    segment of C is accumulated in a zero based scratch row. The JIT will
+    only vectorize the inner loop when the arrays it touches are indexed
+    from the same position, which strided views into one buffer are not.
+    The scratch space is allocated once per call, never in the loops, or
+    passed in by callers that run many products of the same shape.
+
+    The tiling is the same whatever the element type, so it is written
+    once in Tiling, and the int, long and double kernels only supply how a
+    tile is packed and how a row of C is accumulated.
+
+    solution: Θ(n³) but with sequential memory access and no allocation
+ */
+final class BlockedMultiplication {
+
+    /*
+        256 ints per side gives a 256 KiB tile of B, which should sit in a
+        typical L2 cache while still giving the inner loop long runs to stream
+        over. It is a tuning guess, not a measured optimum, run
+        MatrixBenchmark.blocked in the benchmarks build before changing it.
+     */
+    static final int BLOCK_SIZE = 256;
+
+    private static final int TILE_BYTES = BLOCK_SIZE * BLOCK_SIZE * Integer.BYTES;
+
+    private BlockedMultiplication() {
+    }
+
+    static void multiply(Matrix a, Matrix b, Matrix c) {
+        multiply(a.data(), a.offset(), a.stride(),
+                b.data(), b.offset(), b.stride(),
+                c.data(), c.offset(), c.stride(),
+                a.getRowLength(), a.getColLength(), b.getColLength());
+    }
+
+    static void multiply(int[] a, int aOffset, int aStride,
+                         int[] b, int bOffset, int bStride,
+                         int[] c, int cOffset, int cStride,
+                         int n, int m, int p) {
+        multiply(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride, n, m, p, 1);
+    }
+
+    /*
+        C += alpha * A * B, scaling is folded into the cells of A as they are
+        read so it costs nothing extra.
+     */
+    static void multiply(int[] a, int aOffset, int aStride,
+                         int[] b, int bOffset, int bStride,
+                         int[] c, int cOffset, int cStride,
+                         int n, int m, int p, int alpha) {
+        multiplyStrided(a, aOffset, aStride, 1, b, bOffset, bStride, 1, c, cOffset, cStride, n, m, p, alpha);
+    }
+
+    /*
+        Same as above, but A and B are read through a row and a column
+        stride, so a transposed operand is just its matrix with the two
+        strides swapped. A strided row of B is gathered when its tile is
+        packed, so the inner loop is the same either way.
+     */
+    static void multiplyStrided(int[] a, int aOffset, int aRowStride, int aColStride,
+                                int[] b, int bOffset, int bRowStride, int bColStride,
+                                int[] c, int cOffset, int cStride,
+                                int n, int m, int p, int alpha) {
+        if (alpha != 0)
+            new IntTiling(a, aOffset, aRowStride, aColStride, b, bOffset, bRowStride, bColStride,
+                    c, cOffset, cStride, n, m, p, alpha).run();
+    }
+
+    /*
+        Same as multiply above with alpha 1, but packs into the given
+        scratch space instead of allocating its own, for callers that run
+        many products of the same shape.
+     */
+    static void multiply(int[] a, int aOffset, int aStride,
+                         int[] b, int bOffset, int bStride,
+                         int[] c, int cOffset, int cStride,
+                         int n, int m, int p, IntScratch scratch) {
+        new IntTiling(a, aOffset, aStride, 1, b, bOffset, bStride, 1, c, cOffset, cStride, n, m, p, 1, scratch).run();
+    }
+
+    /*
+        Same as above, but every product and sum is done in long so the
+        result is exact as long as it fits in a long. C is a compact
+        n x p buffer of longs.
+     */
+    static void multiplyToLong(int[] a, int aOffset, int aStride,
+                               int[] b, int bOffset, int bStride,
+                               long[] c, int n, int m, int p) {
+        new IntToLongTiling(a, aOffset, aStride, b, bOffset, bStride, c, n, m, p).run();
+    }
+
+    static void multiply(LongMatrix a, LongMatrix b, LongMatrix c) {
+        new LongTiling(a, b, c).run();
+    }
+
+    static void multiply(DoubleMatrix a, DoubleMatrix b, DoubleMatrix c) {
+        new DoubleTiling(a, b, c).run();
+    }
+
+    /*
+        The side of a square tile of B that fits the same budget as the int
+        kernel, 181 for longs and doubles.
+     */
+    static int blockSize(int elementBytes) {
+        return (int) Math.sqrt((double) TILE_BYTES / elementBytes);
+    }
+
+    /*
+        The blocked loops shared by every element type. For each tile of k
+        and j the rows of B are packed, and then every row of C has the
+        matching segment accumulated. Subclasses hold the buffers and do
+        the work per packed row and per row of C, which keeps their inner
+        loops monomorphic so the JIT can inline and vectorize them.
+     */
+    abstract static class Tiling {
+
+        final int n;
+        final int m;
+        final int p;
+        final int blockSize;
+
+        Tiling(int n, int m, int p, int blockSize) {
+            this.n = n;
+            this.m = m;
+            this.p = p;
+            this.blockSize = blockSize;
+        }
+
+        /*
+            Copies row k of B, columns jj to jj + length, into packed row r
+         */
+        abstract void pack(int k, int jj, int length, int r);
+
+        /*
+            Row i of C, columns jj to jj + length, plus the sum over k from
+            kk to kEnd of A[i][k] times packed row k - kk
+         */
+        abstract void accumulate(int i, int kk, int kEnd, int jj, int length);
+
+        final void run() {
+            if (n == 0 || m == 0 || p == 0)
+                return;
+            for (int kk = 0; kk < m; kk += blockSize) {
+                final int kEnd = Math.min(kk + blockSize, m);
+                for (int jj = 0; jj < p; jj += blockSize) {
+                    final int length = Math.min(jj + blockSize, p) - jj;
+                    for (int k = kk; k < kEnd; k++) {
+                        pack(k, jj, length, k - kk);
+                    }
+                    for (int i = 0; i < n; i++) {
+                        accumulate(i, kk, kEnd, jj, length);
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+        The packed tile of B and the accumulated row of C of the int kernel,
+        large enough for any product with at most m inner and p columns.
+     */
+    static final class IntScratch {
+
+        private final int[][] panel;
+        private final int[] accumulator;
+
+        IntScratch(int m, int p) {
+            this.panel = new int[Math.min(BLOCK_SIZE, m)][Math.min(BLOCK_SIZE, p)];
+            this.accumulator = new int[Math.min(BLOCK_SIZE, p)];
+        }
+    }
+
+    static class IntTiling extends Tiling {
+
+        private final int[] a;
+        private final int aOffset;
+        private final int aRowStride;
+        private final int aColStride;
+        private final int[] b;
+        private final int bOffset;
+        private final int bRowStride;
+        private final int bColStride;
+        private final int[] c;
+        private final int cOffset;
+        private final int cStride;
+        private final int alpha;
+        private final int[][] panel;
+        private final int[] accumulator;
+
+        IntTiling(int[] a, int aOffset, int aStride,
+                  int[] b, int bOffset, int bStride,
+                  int[] c, int cOffset, int cStride,
+                  int n, int m, int p, int alpha) {
+            this(a, aOffset, aStride, 1, b, bOffset, bStride, 1, c, cOffset, cStride, n, m, p, alpha);
+        }
+
+        IntTiling(int[] a, int aOffset, int aRowStride, int aColStride,
+                  int[] b, int bOffset, int bRowStride, int bColStride,
+                  int[] c, int cOffset, int cStride,
+                  int n, int m, int p, int alpha) {
+            this(a, aOffset, aRowStride, aColStride, b, bOffset, bRowStride, bColStride, c, cOffset, cStride,
+                    n, m, p, alpha, new IntScratch(m, p));
+        }
+
+        IntTiling(int[] a, int aOffset, int aRowStride, int aColStride,
+                  int[] b, int bOffset, int bRowStride, int bColStride,
+                  int[] c, int cOffset, int cStride,
+                  int n, int m, int p, int alpha, IntScratch scratch) {
+            super(n, m, p, BLOCK_SIZE);
+            this.a = a;
+            this.aOffset = aOffset;
+            this.aRowStride = aRowStride;
+            this.aColStride = aColStride;
+            this.b = b;
+            this.bOffset = bOffset;
+            this.bRowStride = bRowStride;
+            this.bColStride = bColStride;
+            this.c = c;
+            this.cOffset = cOffset;
+            this.cStride = cStride;
+            this.alpha = alpha;
+            this.panel = scratch.panel;
+            this.accumulator = scratch.accumulator;
+        }
+
+        @Override
+        final void pack(int k, int jj, int length, int r) {
+            final int start = bOffset + k * bRowStride + jj * bColStride;
+            if (bColStride == 1) {
+                System.arraycopy(b, start, panel[r], 0, length);
+                return;
+            }
+            final int[] row = panel[r];
+            for (int j = 0, index = start; j < length; j++, index += bColStride) {
+                row[j] = b[index];
+            }
+        }
+
+        @Override
+        final void accumulate(int i, int kk, int kEnd, int jj, int length) {
+            final int aRow = aOffset + i * aRowStride;
+            final int cStart = cOffset + i * cStride + jj;
+            System.arraycopy(c, cStart, accumulator, 0, length);
+            for (int k = kk; k < kEnd; k++) {
+                final int aik = alpha * a[aRow + k * aColStride];
+                if (aik != 0)
+                    axpy(aik, panel[k - kk], accumulator, length);
+            }
+            System.arraycopy(accumulator, 0, c, cStart, length);
+        }
+
+        /*
+            accumulator += alpha * row, the only part a SIMD kernel replaces
+         */
+        void axpy(int alpha, int[] row, int[] accumulator, int length) {
+            for (int j = 0; j < length; j++) {
+                accumulator[j] += alpha * row[j];
+            }
+        }
+    }
+
+    private static final class IntToLongTiling extends Tiling {
+
+        private final int[] a;
+        private final int aOffset;
+        private final int aStride;
+        private final int[] b;
+        private final int bOffset;
+        private final int bStride;
+        private final long[] c;
+        private final int[][] panel;
+        private final long[] accumulator;
+
+        IntToLongTiling(int[] a, int aOffset, int aStride, int[] b, int bOffset, int bStride,
+                        long[] c, int n, int m, int p) {
+            super(n, m, p, BLOCK_SIZE);
+            this.a = a;
+            this.aOffset = aOffset;
+            this.aStride = aStride;
+            this.b = b;
+            this.bOffset = bOffset;
+            this.bStride = bStride;
+            this.c = c;
+            this.panel = new int[Math.min(BLOCK_SIZE, m)][Math.min(BLOCK_SIZE, p)];
+            this.accumulator = new long[Math.min(BLOCK_SIZE, p)];
+        }
+
+        @Override
+        void pack(int k, int jj, int length, int r) {
+            System.arraycopy(b, bOffset + k * bStride + jj, panel[r], 0, length);
+        }
+
+        @Override
+        void accumulate(int i, int kk, int kEnd, int jj, int length) {
+            final int aRow = aOffset + i * aStride;
+            final int cStart = i * p + jj;
+            System.arraycopy(c, cStart, accumulator, 0, length);
+            for (int k = kk; k < kEnd; k++) {
+                final long aik = a[aRow + k];
+                if (aik != 0) {
+                    final int[] row = panel[k - kk];
+                    for (int j = 0; j < length; j++) {
+                        accumulator[j] += aik * row[j];
+                    }
+                }
+            }
+            System.arraycopy(accumulator, 0, c, cStart, length);
+        }
+    }
+
+    private static final class LongTiling extends Tiling {
+
+        private final LongMatrix a;
+        private final LongMatrix b;
+        private final LongMatrix c;
+        private final long[][] panel;
+        private final long[] accumulator;
+
+        LongTiling(LongMatrix a, LongMatrix b, LongMatrix c) {
+            super(a.getRowLength(), a.getColLength(), b.getColLength(), blockSize(Long.BYTES));
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.panel = new long[Math.min(blockSize, m)][Math.min(blockSize, p)];
+            this.accumulator = new long[Math.min(blockSize, p)];
+        }
+
+        @Override
+        void pack(int k, int jj, int length, int r) {
+            System.arraycopy(b.data(), b.offset() + k * b.stride() + jj, panel[r], 0, length);
+        }
+
+        @Override
+        void accumulate(int i, int kk, int kEnd, int jj, int length) {
+            final long[] aData = a.data();
+            final int aRow = a.offset() + i * a.stride();
+            final int cStart = c.offset() + i * c.stride() + jj;
+            System.arraycopy(c.data(), cStart, accumulator, 0, length);
+            for (int k = kk; k < kEnd; k++) {
+                final long aik = aData[aRow + k];
+                if (aik != 0) {
+                    final long[] row = panel[k - kk];
+                    for (int j = 0; j < length; j++) {
+                        accumulator[j] += aik * row[j];
+                    }
+                }
+            }
+            System.arraycopy(accumulator, 0, c.data(), cStart, length);
+        }
+    }
+
+    /*
+        Zero cells of A are not skipped here, 0 * NaN and 0 * Infinity must
+        still give NaN.
+     */
+    private static final class DoubleTiling extends Tiling {
+
+        private final DoubleMatrix a;
+        private final DoubleMatrix b;
+        private final DoubleMatrix c;
+        private final double[][] panel;
+        private final double[] accumulator;
+
+        DoubleTiling(DoubleMatrix a, DoubleMatrix b, DoubleMatrix c) {
+            super(a.getRowLength(), a.getColLength(), b.getColLength(), blockSize(Double.BYTES));
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.panel = new double[Math.min(blockSize, m)][Math.min(blockSize, p)];
+            this.accumulator = new double[Math.min(blockSize, p)];
+        }
+
+        @Override
+        void pack(int k, int jj, int length, int r) {
+            System.arraycopy(b.data(), b.offset() + k * b.stride() + jj, panel[r], 0, length);
+        }
+
+        @Override
+        void accumulate(int i, int kk, int kEnd, int jj, int length) {
+            final double[] aData = a.data();
+            final int aRow = a.offset() + i * a.stride();
+            final int cStart = c.offset() + i * c.stride() + jj;
+            System.arraycopy(c.data(), cStart, accumulator, 0, length);
+            for (int k = kk; k < kEnd; k++) {
+                final double aik = aData[aRow + k];
+                final double[] row = panel[k - kk];
+                for (int j = 0; j < length; j++) {
+                    accumulator[j] += aik * row[j];
+                }
+            }
+            System.arraycopy(accumulator, 0, c.data(), cStart, length);
+        }
+    }
+}
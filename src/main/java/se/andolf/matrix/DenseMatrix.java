@@ -0,0 +1,79 @@
+package se.andolf.matrix;
+
+/*
+    The layout shared by Matrix, LongMatrix and DoubleMatrix.
+
+    The element at (x, y) lives at offset + x * stride + y of a flat
+    buffer. Only the type of that buffer differs between them, so the
+    index arithmetic and bounds checks of cells, rows, columns and views
+    live here, and each subclass keeps its own typed buffer.
+ */
+abstract class DenseMatrix {
+
+    final int rows;
+    final int cols;
+    final int offset;
+    final int stride;
+
+    DenseMatrix(int rows, int cols, int offset, int stride) {
+        this.rows = rows;
+        this.cols = cols;
+        this.offset = offset;
+        this.stride = stride;
+    }
+
+    public int getColLength() {
+        return cols;
+    }
+
+    public int getRowLength() {
+        return rows;
+    }
+
+    int offset() {
+        return offset;
+    }
+
+    int stride() {
+        return stride;
+    }
+
+    void checkMultipliable(DenseMatrix matrix) {
+        if (cols != matrix.rows)
+            throw new IllegalArgumentException("Cannot multiply a " + rows + "x" + cols
+                    + " matrix with a " + matrix.rows + "x" + matrix.cols + " matrix");
+    }
+
+    int index(int x, int y) {
+        if (x < 0 || x >= rows || y < 0 || y >= cols)
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is outside of a "
+                    + rows + "x" + cols + " matrix");
+        return offset + x * stride + y;
+    }
+
+    /*
+        Rows and columns are checked on their own, a row of a n x 0 matrix
+        is a valid empty row even though it has no cell to index.
+     */
+    int rowStart(int x) {
+        if (x < 0 || x >= rows)
+            throw new IndexOutOfBoundsException("Row " + x + " is outside of a " + rows + "x" + cols + " matrix");
+        return offset + x * stride;
+    }
+
+    int columnStart(int y) {
+        if (y < 0 || y >= cols)
+            throw new IndexOutOfBoundsException("Column " + y + " is outside of a " + rows + "x" + cols + " matrix");
+        return offset + y;
+    }
+
+    /*
+        Where a view of the given region starts in the buffer
+     */
+    int regionStart(int x, int y, int rows, int cols) {
+        if (x < 0 || y < 0 || rows < 0 || cols < 0 || x + rows > this.rows || y + cols > this.cols)
+            throw new IndexOutOfBoundsException("Region " + rows + "x" + cols + " at (" + x + ", " + y
+                    + ") is outside of a " + this.rows + "x" + this.cols + " matrix");
+        return offset + x * stride + y;
+    }
+}
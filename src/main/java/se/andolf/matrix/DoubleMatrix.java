@@ -0,0 +1,107 @@
+package se.andolf.matrix;
+
+/*
+    A matrix of doubles stored row-major in a single flat buffer, laid out
+    the same way as Matrix with rows, columns and sub matrices as views.
+ */
+public class DoubleMatrix extends DenseMatrix {
+
+    private final double[] data;
+
+    public DoubleMatrix(double[][] values) {
+        this(values.length, values.length == 0 ? 0 : values[0].length);
+        for (int x = 0; x < rows; x++) {
+            if (values[x].length != cols)
+                throw new IllegalArgumentException("Row " + x + " has " + values[x].length
+                        + " columns, expected " + cols);
+            System.arraycopy(values[x], 0, data, x * stride, cols);
+        }
+    }
+
+    public DoubleMatrix(int rows, int cols) {
+        this(new double[Math.multiplyExact(rows, cols)], rows, cols, 0, cols);
+    }
+
+    DoubleMatrix(double[] data, int rows, int cols, int offset, int stride) {
+        super(rows, cols, offset, stride);
+        this.data = data;
+    }
+
+    public double get(int x, int y) {
+        return data[index(x, y)];
+    }
+
+    public void set(int x, int y, double value) {
+        data[index(x, y)] = value;
+    }
+
+    public double[] getRow(int x) {
+        final double[] row = new double[cols];
+        System.arraycopy(data, rowStart(x), row, 0, cols);
+        return row;
+    }
+
+    public double[] getColumn(int y) {
+        final double[] column = new double[rows];
+        for (int x = 0, i = columnStart(y); x < rows; x++, i += stride) {
+            column[x] = data[i];
+        }
+        return column;
+    }
+
+    /**
+     * @return a 1 x n view of row x, backed by this matrix
+     */
+    public DoubleMatrix row(int x) {
+        return subMatrix(x, 0, 1, cols);
+    }
+
+    /**
+     * @return a n x 1 view of column y, backed by this matrix
+     */
+    public DoubleMatrix column(int y) {
+        return subMatrix(0, y, rows, 1);
+    }
+
+    /**
+     * @return a view of the given region, backed by this matrix
+     */
+    public DoubleMatrix subMatrix(int x, int y, int rows, int cols) {
+        return new DoubleMatrix(data, rows, cols, regionStart(x, y, rows, cols), stride);
+    }
+
+    public double[][] toArray() {
+        final double[][] values = new double[rows][];
+        for (int x = 0; x < rows; x++) {
+            values[x] = getRow(x);
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for (int x = 0; x < rows; x++) {
+            for (int i = offset + x * stride, end = i + cols; i < end; i++) {
+                sb.append(data[i]).append(" ");
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    /*
+        Same blocked i-k-j kernel with packed tiles as for int matrices, see
+        BlockedMultiplication.
+     */
+    public DoubleMatrix multiply(DoubleMatrix matrix) {
+        checkMultipliable(matrix);
+        final DoubleMatrix product = new DoubleMatrix(rows, matrix.cols);
+        BlockedMultiplication.multiply(this, matrix, product);
+        return product;
+    }
+
+    double[] data() {
+        return data;
+    }
+}
@@ -0,0 +1,291 @@
+package se.andolf.matrix;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+    A matrix of ints that lives outside of the Java heap, either in a memory
+    mapped file or in direct buffers.
+
+    A single buffer can address at most 2 GiB, so the rows are spread over
+    segments of at most 1 GiB holding whole rows each. Cells are read and
+    written in place, and the product streams square tiles through heap
+    scratch matrices, so only a handful of tiles are ever on the heap no
+    matter how big the matrices are. Mapped files are paged in and out by
+    the operating system.
+
+    Files use the layout described in MatrixFormat.
+ */
+public class MappedMatrix {
+
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    /*
+        Three 1024x1024 int tiles is 12 MiB of heap per product.
+     */
+    static final int TILE_SIZE = 1024;
+
+    private final int rows;
+    private final int cols;
+    private final int rowsPerSegment;
+    private final ByteBuffer[] buffers;
+    private final IntBuffer[] segments;
+
+    private MappedMatrix(int rows, int cols, ByteBuffer[] buffers) {
+        this.rows = rows;
+        this.cols = cols;
+        this.rowsPerSegment = rowsPerSegment(cols);
+        this.buffers = buffers;
+        this.segments = new IntBuffer[buffers.length];
+        for (int s = 0; s < buffers.length; s++) {
+            segments[s] = buffers[s].order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+    }
+
+    /**
+     * Creates a zeroed matrix in direct memory outside of the heap.
+     */
+    public static MappedMatrix allocateDirect(int rows, int cols) {
+        checkDimensions(rows, cols);
+        final int rowsPerSegment = rowsPerSegment(cols);
+        final ByteBuffer[] buffers = new ByteBuffer[segmentCount(rows, rowsPerSegment)];
+        for (int s = 0; s < buffers.length; s++) {
+            buffers[s] = ByteBuffer.allocateDirect(segmentRows(s, rows, rowsPerSegment) * cols * Integer.BYTES);
+        }
+        return new MappedMatrix(rows, cols, buffers);
+    }
+
+    /**
+     * Creates a new zeroed matrix file and maps it for reading and writing.
+     * An existing file is replaced.
+     */
+    public static MappedMatrix create(Path file, int rows, int cols) throws IOException {
+        checkDimensions(rows, cols);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(MatrixFormat.header(MatrixFormat.TYPE_INT, (byte) 0, rows, cols), 0);
+            return map(channel, FileChannel.MapMode.READ_WRITE, rows, cols);
+        }
+    }
+
+    /**
+     * Maps an existing matrix file.
+     *
+     * @param writable if the matrix may be written to, changes go straight to the file
+     */
+    public static MappedMatrix open(Path file, boolean writable) throws IOException {
+        final StandardOpenOption[] options = writable
+                ? new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE }
+                : new StandardOpenOption[] { StandardOpenOption.READ };
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            final ByteBuffer header = ByteBuffer.allocate(MatrixFormat.HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            final MatrixFormat.Header parsed = MatrixFormat.read(header);
+            if (parsed.type != MatrixFormat.TYPE_INT)
+                throw new IOException("Expected an int matrix, was type " + parsed.type);
+            if (channel.size() < MatrixFormat.HEADER_SIZE + (long) parsed.rows * parsed.cols * Integer.BYTES)
+                throw new EOFException("Matrix file is truncated");
+            return map(channel, writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                    parsed.rows, parsed.cols);
+        }
+    }
+
+    /**
+     * Copies a heap matrix out of the heap, into direct memory.
+     */
+    public static MappedMatrix of(Matrix matrix) {
+        final MappedMatrix mapped = allocateDirect(matrix.getRowLength(), matrix.getColLength());
+        mapped.writeTile(0, 0, matrix);
+        return mapped;
+    }
+
+    public int get(int x, int y) {
+        checkIndex(x, y);
+        return segments[x / rowsPerSegment].get((x % rowsPerSegment) * cols + y);
+    }
+
+    public void set(int x, int y, int value) {
+        checkIndex(x, y);
+        segments[x / rowsPerSegment].put((x % rowsPerSegment) * cols + y, value);
+    }
+
+    public int[] getRow(int x) {
+        checkRow(x);
+        final int[] row = new int[cols];
+        final IntBuffer segment = segments[x / rowsPerSegment].duplicate();
+        segment.position((x % rowsPerSegment) * cols);
+        segment.get(row);
+        return row;
+    }
+
+    public int[] getColumn(int y) {
+        checkColumn(y);
+        final int[] column = new int[rows];
+        for (int x = 0; x < rows; x++) {
+            column[x] = segments[x / rowsPerSegment].get((x % rowsPerSegment) * cols + y);
+        }
+        return column;
+    }
+
+    /**
+     * Copies a region onto the heap.
+     */
+    public Matrix readTile(int x, int y, int rows, int cols) {
+        final Matrix tile = new Matrix(rows, cols);
+        readTile(x, y, tile);
+        return tile;
+    }
+
+    /**
+     * Copies the given matrix into this one, with its top left corner at (x, y).
+     */
+    public void writeTile(int x, int y, Matrix tile) {
+        checkRegion(x, y, tile.getRowLength(), tile.getColLength());
+        for (int i = 0; i < tile.getRowLength(); i++) {
+            final IntBuffer segment = segments[(x + i) / rowsPerSegment].duplicate();
+            segment.position(((x + i) % rowsPerSegment) * cols + y);
+            segment.put(tile.data(), tile.offset() + i * tile.stride(), tile.getColLength());
+        }
+    }
+
+    /**
+     * Multiplies this with the given matrix into a new matrix file.
+     */
+    public MappedMatrix multiply(MappedMatrix matrix, Path file) throws IOException {
+        checkMultipliable(matrix);
+        final MappedMatrix product = create(file, rows, matrix.cols);
+        multiply(matrix, product, TILE_SIZE);
+        return product;
+    }
+
+    /*
+        C = A * B, one tile of C at a time. For every tile of C the matching
+        row of tiles in A and column of tiles in B are streamed through two
+        heap scratch tiles and accumulated into a third, which is then
+        written back.
+     */
+    void multiply(MappedMatrix matrix, MappedMatrix product, int tileSize) {
+        checkMultipliable(matrix);
+        final int m = cols;
+        final int p = matrix.cols;
+        final int[] aTile = new int[tileSize * tileSize];
+        final int[] bTile = new int[tileSize * tileSize];
+        final int[] cTile = new int[tileSize * tileSize];
+        for (int x = 0; x < rows; x += tileSize) {
+            final int tileRows = Math.min(tileSize, rows - x);
+            for (int y = 0; y < p; y += tileSize) {
+                final int tileCols = Math.min(tileSize, p - y);
+                final Matrix c = new Matrix(cTile, tileRows, tileCols, 0, tileCols);
+                Arrays.fill(cTile, 0, tileRows * tileCols, 0);
+                for (int k = 0; k < m; k += tileSize) {
+                    final int depth = Math.min(tileSize, m - k);
+                    final Matrix a = new Matrix(aTile, tileRows, depth, 0, depth);
+                    final Matrix b = new Matrix(bTile, depth, tileCols, 0, tileCols);
+                    readTile(x, k, a);
+                    matrix.readTile(k, y, b);
+                    VectorizedMultiplication.multiply(a, b, c);
+                }
+                product.writeTile(x, y, c);
+            }
+        }
+    }
+
+    /**
+     * Writes any changes of a mapped file back to disk.
+     */
+    public void flush() {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer instanceof MappedByteBuffer)
+                ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    public Matrix toMatrix() {
+        return readTile(0, 0, rows, cols);
+    }
+
+    public int getRowLength() {
+        return rows;
+    }
+
+    public int getColLength() {
+        return cols;
+    }
+
+    private void readTile(int x, int y, Matrix tile) {
+        checkRegion(x, y, tile.getRowLength(), tile.getColLength());
+        for (int i = 0; i < tile.getRowLength(); i++) {
+            final IntBuffer segment = segments[(x + i) / rowsPerSegment].duplicate();
+            segment.position(((x + i) % rowsPerSegment) * cols + y);
+            segment.get(tile.data(), tile.offset() + i * tile.stride(), tile.getColLength());
+        }
+    }
+
+    private static MappedMatrix map(FileChannel channel, FileChannel.MapMode mode, int rows, int cols)
+            throws IOException {
+        final int rowsPerSegment = rowsPerSegment(cols);
+        final ByteBuffer[] buffers = new ByteBuffer[segmentCount(rows, rowsPerSegment)];
+        final long rowBytes = (long) cols * Integer.BYTES;
+        for (int s = 0; s < buffers.length; s++) {
+            final long position = MatrixFormat.HEADER_SIZE + (long) s * rowsPerSegment * rowBytes;
+            buffers[s] = channel.map(mode, position, segmentRows(s, rows, rowsPerSegment) * rowBytes);
+        }
+        return new MappedMatrix(rows, cols, buffers);
+    }
+
+    private void checkMultipliable(MappedMatrix matrix) {
+        if (cols != matrix.rows)
+            throw new IllegalArgumentException("Cannot multiply a " + rows + "x" + cols
+                    + " matrix with a " + matrix.rows + "x" + matrix.cols + " matrix");
+    }
+
+    private void checkIndex(int x, int y) {
+        if (x < 0 || x >= rows || y < 0 || y >= cols)
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is outside of a "
+                    + rows + "x" + cols + " matrix");
+    }
+
+    private void checkRow(int x) {
+        if (x < 0 || x >= rows)
+            throw new IndexOutOfBoundsException("Row " + x + " is outside of a " + rows + "x" + cols + " matrix");
+    }
+
+    private void checkColumn(int y) {
+        if (y < 0 || y >= cols)
+            throw new IndexOutOfBoundsException("Column " + y + " is outside of a " + rows + "x" + cols + " matrix");
+    }
+
+    private void checkRegion(int x, int y, int rows, int cols) {
+        if (x < 0 || y < 0 || x + rows > this.rows || y + cols > this.cols)
+            throw new IndexOutOfBoundsException("Region " + rows + "x" + cols + " at (" + x + ", " + y
+                    + ") is outside of a " + this.rows + "x" + this.cols + " matrix");
+    }
+
+    private static void checkDimensions(int rows, int cols) {
+        if (rows < 0 || cols < 0 || (long) cols * Integer.BYTES > SEGMENT_BYTES)
+            throw new IllegalArgumentException("Invalid dimensions " + rows + "x" + cols);
+    }
+
+    private static int rowsPerSegment(int cols) {
+        return (int) Math.max(1, SEGMENT_BYTES / Math.max(1, (long) cols * Integer.BYTES));
+    }
+
+    private static int segmentCount(int rows, int rowsPerSegment) {
+        return rows == 0 ? 0 : (rows - 1) / rowsPerSegment + 1;
+    }
+
+    private static int segmentRows(int segment, int rows, int rowsPerSegment) {
+        return Math.min(rowsPerSegment, rows - segment * rowsPerSegment);
+    }
+}
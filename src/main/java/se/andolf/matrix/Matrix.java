@@ -1,69 +1,173 @@
 package se.andolf.matrix;
 
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
+/*
+    A matrix of ints stored row-major in a single flat buffer.
 
-public class Matrix {
+    The element at (x, y) lives at data[offset + x * stride + y], which lets
+    rows, columns and sub matrices be handed out as views over the same
+    buffer without copying anything.
+ */
+public class Matrix extends DenseMatrix {
 
-    private final int[][] values;
+    private final int[] data;
 
     public Matrix(int[][] values) {
-        this.values = values;
+        this(values.length, values.length == 0 ? 0 : values[0].length);
+        for (int x = 0; x < rows; x++) {
+            if (values[x].length != cols)
+                throw new IllegalArgumentException("Row " + x + " has " + values[x].length
+                        + " columns, expected " + cols);
+            System.arraycopy(values[x], 0, data, x * stride, cols);
+        }
+    }
+
+    public Matrix(int rows, int cols) {
+        this(new int[Math.multiplyExact(rows, cols)], rows, cols, 0, cols);
+    }
+
+    Matrix(int[] data, int rows, int cols, int offset, int stride) {
+        super(rows, cols, offset, stride);
+        this.data = data;
     }
 
     public int get(int x, int y) {
-        return values[x][y];
+        return data[index(x, y)];
+    }
+
+    public void set(int x, int y, int value) {
+        data[index(x, y)] = value;
     }
 
     public int[] getRow(int x) {
-        return values[x];
+        final int[] row = new int[cols];
+        System.arraycopy(data, rowStart(x), row, 0, cols);
+        return row;
     }
 
     public int[] getColumn(int y) {
-        return Stream.of(values)
-                .map(currentRow -> currentRow[y])
-                .mapToInt(value -> value)
-                .toArray();
+        final int[] column = new int[rows];
+        for (int x = 0, i = columnStart(y); x < rows; x++, i += stride) {
+            column[x] = data[i];
+        }
+        return column;
+    }
+
+    /**
+     * @return a 1 x n view of row x, backed by this matrix
+     */
+    public Matrix row(int x) {
+        return subMatrix(x, 0, 1, cols);
+    }
+
+    /**
+     * @return a n x 1 view of column y, backed by this matrix
+     */
+    public Matrix column(int y) {
+        return subMatrix(0, y, rows, 1);
+    }
+
+    /**
+     * @return a view of the given region, backed by this matrix
+     */
+    public Matrix subMatrix(int x, int y, int rows, int cols) {
+        return new Matrix(data, rows, cols, regionStart(x, y, rows, cols), stride);
+    }
+
+    /**
+     * @return a copy of this matrix with its own compact buffer
+     */
+    public Matrix copy() {
+        final Matrix copy = new Matrix(rows, cols);
+        for (int x = 0; x < rows; x++) {
+            System.arraycopy(data, offset + x * stride, copy.data, x * cols, cols);
+        }
+        return copy;
+    }
+
+    public int[][] toArray() {
+        final int[][] values = new int[rows][];
+        for (int x = 0; x < rows; x++) {
+            values[x] = getRow(x);
+        }
+        return values;
     }
 
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
-        for (final int[] currentRow : values) {
-            for (int value : currentRow) {
-                sb.append(value).append(" ");
+        for (int x = 0; x < rows; x++) {
+            for (int i = offset + x * stride, end = i + cols; i < end; i++) {
+                sb.append(data[i]).append(" ");
             }
             sb.append("\n");
         }
         return sb.toString();
     }
 
+    /**
+     * @return a lazy expression of this matrix, nothing is computed until
+     * the expression is materialized
+     */
+    public MatrixExpression lazy() {
+        return MatrixExpression.of(this);
+    }
+
+    /**
+     * @deprecated this has always computed the matrix product, use {@link #multiply(Matrix)}
+     */
+    @Deprecated
     public Matrix add(Matrix matrix) {
-        int[][] product = new int[this.getRowLength()][matrix.getColLength()];
-        for (int i = 0; i < values.length; i++) {
-            final int[] thisRow = values[i];
-            for (int j = 0; j < matrix.getColLength(); j++) {
-                final int[] matrixColumn = matrix.getColumn(j);
-                product[i][j] = getSum(thisRow, matrixColumn);
-            }
-        }
+        return multiply(matrix);
+    }
+
+    public Matrix multiply(Matrix matrix) {
+        return multiply(matrix, Parallelism.sequential());
+    }
 
-        return new Matrix(product);
+    /**
+     * Large square products run sequentially use Strassen's algorithm,
+     * everything else uses the blocked classical kernel.
+     *
+     * @param matrix the right hand side of the product
+     * @param parallelism how the product may be split over threads
+     * @return the matrix product of this and the given matrix
+     */
+    public Matrix multiply(Matrix matrix, Parallelism parallelism) {
+        checkMultipliable(matrix);
+        final Matrix product = new Matrix(rows, matrix.cols);
+        if (parallelism.isSequential() && StrassenMultiplication.isApplicable(this, matrix))
+            StrassenMultiplication.multiply(this, matrix, product);
+        else
+            ParallelMultiplication.multiply(this, matrix, product, parallelism);
+        return product;
     }
 
-    private int getSum(int[] row, int[] column) {
-        return IntStream.range(0, column.length)
-                .map(i -> (row[i] * column[i]))
-                .sum();
+    /**
+     * @param matrix the sparse right hand side of the product
+     * @return the matrix product of this and the given matrix
+     */
+    public Matrix multiply(SparseMatrix matrix) {
+        return SparseMatrix.multiply(this, matrix);
     }
 
-    private int getColLength() {
-        if(values.length == 0)
-            return 0;
-        return values[0].length;
+    /**
+     * Multiplies in long instead of int, so the product does not wrap
+     * around when a cell grows beyond the range of an int. Any product
+     * of two ints fits in a long, so the result is exact as long as
+     * every sum of those fits as well.
+     *
+     * @param matrix the right hand side of the product
+     * @return the matrix product of this and the given matrix
+     */
+    public LongMatrix multiplyToLong(Matrix matrix) {
+        checkMultipliable(matrix);
+        final long[] product = new long[Math.multiplyExact(rows, matrix.cols)];
+        BlockedMultiplication.multiplyToLong(data, offset, stride, matrix.data, matrix.offset, matrix.stride,
+                product, rows, cols, matrix.cols);
+        return new LongMatrix(product, rows, matrix.cols, 0, matrix.cols);
     }
 
-    private int getRowLength() {
-        return values.length;
+    int[] data() {
+        return data;
     }
 }
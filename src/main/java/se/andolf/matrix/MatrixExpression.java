@@ -0,0 +1,275 @@
+package se.andolf.matrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    A lazily evaluated matrix expression.
+
+    Products, sums, transposes and scaling only build a tree of nodes, no
+    cells are computed until materialize is called. Every node knows how to
+    write factor * value into a target, either overwriting it or adding to
+    it, which is what lets element-wise steps be fused:
+
+    - a scale multiplies the factor passed down to its child
+    - a sum writes its left side and then adds its right side on top
+    - a product adds factor * A * B straight into the target through the
+      kernel, so A * B + C writes C and then accumulates the product on top
+
+    Transposes are pushed down to the leaves when the tree is built, using
+    (AB)ᵀ = BᵀAᵀ and (A + B)ᵀ = Aᵀ + Bᵀ. A transposed leaf is read by
+    the kernel through its matrix with the row and column strides swapped,
+    and written into a target with the same swapped walk, so a transpose
+    never needs a temporary of its own. Only operands of a product that
+    are sums, scales or products are materialized, into buffers that are
+    handed back to a pool and reused by later steps of the same evaluation.
+ */
+public abstract class MatrixExpression {
+
+    private final int rows;
+    private final int cols;
+
+    private MatrixExpression(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    static MatrixExpression of(Matrix matrix) {
+        return new Leaf(matrix, false);
+    }
+
+    public MatrixExpression times(MatrixExpression expression) {
+        if (cols != expression.rows)
+            throw new IllegalArgumentException("Cannot multiply a " + rows + "x" + cols
+                    + " matrix with a " + expression.rows + "x" + expression.cols + " matrix");
+        return new Product(this, expression);
+    }
+
+    public MatrixExpression times(Matrix matrix) {
+        return times(matrix.lazy());
+    }
+
+    public MatrixExpression plus(MatrixExpression expression) {
+        if (rows != expression.rows || cols != expression.cols)
+            throw new IllegalArgumentException("Cannot add a " + rows + "x" + cols
+                    + " matrix to a " + expression.rows + "x" + expression.cols + " matrix");
+        return new Sum(this, expression);
+    }
+
+    public MatrixExpression plus(Matrix matrix) {
+        return plus(matrix.lazy());
+    }
+
+    public MatrixExpression scale(int factor) {
+        return new Scale(this, factor);
+    }
+
+    public abstract MatrixExpression transpose();
+
+    /**
+     * Evaluates the expression into a new matrix.
+     */
+    public Matrix materialize() {
+        final Matrix target = new Matrix(rows, cols);
+        evaluate(target, 1, false, new BufferPool());
+        return target;
+    }
+
+    public int getRowLength() {
+        return rows;
+    }
+
+    public int getColLength() {
+        return cols;
+    }
+
+    /*
+        target = factor * this, or target += factor * this when accumulating
+     */
+    abstract void evaluate(Matrix target, int factor, boolean accumulate, BufferPool pool);
+
+    /*
+        The value of this in a form the kernel can read, either an existing
+        matrix read through its strides or a buffer taken from the pool.
+     */
+    Operand operand(BufferPool pool) {
+        final Matrix buffer = pool.acquire(rows, cols);
+        evaluate(buffer, 1, false, pool);
+        return new Operand(buffer, false);
+    }
+
+    /*
+        A matrix as the kernel reads it, a transposed one is walked with
+        its row and column strides swapped.
+     */
+    static final class Operand {
+
+        private final Matrix matrix;
+        private final int rowStride;
+        private final int colStride;
+
+        Operand(Matrix matrix, boolean transposed) {
+            this.matrix = matrix;
+            this.rowStride = transposed ? 1 : matrix.stride();
+            this.colStride = transposed ? matrix.stride() : 1;
+        }
+    }
+
+    private static final class Leaf extends MatrixExpression {
+
+        private final Matrix matrix;
+        private final boolean transposed;
+
+        Leaf(Matrix matrix, boolean transposed) {
+            super(transposed ? matrix.getColLength() : matrix.getRowLength(),
+                    transposed ? matrix.getRowLength() : matrix.getColLength());
+            this.matrix = matrix;
+            this.transposed = transposed;
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            return new Leaf(matrix, !transposed);
+        }
+
+        @Override
+        Operand operand(BufferPool pool) {
+            return new Operand(matrix, transposed);
+        }
+
+        @Override
+        void evaluate(Matrix target, int factor, boolean accumulate, BufferPool pool) {
+            final int[] source = matrix.data();
+            final int[] destination = target.data();
+            final int rows = getRowLength();
+            final int cols = getColLength();
+            for (int x = 0; x < rows; x++) {
+                final int targetRow = target.offset() + x * target.stride();
+                int sourceIndex = transposed ? matrix.offset() + x : matrix.offset() + x * matrix.stride();
+                final int sourceStep = transposed ? matrix.stride() : 1;
+                for (int y = 0; y < cols; y++, sourceIndex += sourceStep) {
+                    final int value = factor * source[sourceIndex];
+                    destination[targetRow + y] = accumulate ? destination[targetRow + y] + value : value;
+                }
+            }
+        }
+    }
+
+    private static final class Product extends MatrixExpression {
+
+        private final MatrixExpression left;
+        private final MatrixExpression right;
+
+        Product(MatrixExpression left, MatrixExpression right) {
+            super(left.getRowLength(), right.getColLength());
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            return new Product(right.transpose(), left.transpose());
+        }
+
+        @Override
+        void evaluate(Matrix target, int factor, boolean accumulate, BufferPool pool) {
+            if (!accumulate)
+                clear(target);
+            final Operand a = left.operand(pool);
+            final Operand b = right.operand(pool);
+            BlockedMultiplication.multiplyStrided(a.matrix.data(), a.matrix.offset(), a.rowStride, a.colStride,
+                    b.matrix.data(), b.matrix.offset(), b.rowStride, b.colStride,
+                    target.data(), target.offset(), target.stride(),
+                    getRowLength(), left.getColLength(), getColLength(), factor);
+            pool.release(b.matrix);
+            pool.release(a.matrix);
+        }
+
+        private static void clear(Matrix target) {
+            for (int x = 0; x < target.getRowLength(); x++) {
+                final int start = target.offset() + x * target.stride();
+                Arrays.fill(target.data(), start, start + target.getColLength(), 0);
+            }
+        }
+    }
+
+    private static final class Sum extends MatrixExpression {
+
+        private final MatrixExpression left;
+        private final MatrixExpression right;
+
+        Sum(MatrixExpression left, MatrixExpression right) {
+            super(left.getRowLength(), left.getColLength());
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            return new Sum(left.transpose(), right.transpose());
+        }
+
+        @Override
+        void evaluate(Matrix target, int factor, boolean accumulate, BufferPool pool) {
+            left.evaluate(target, factor, accumulate, pool);
+            right.evaluate(target, factor, true, pool);
+        }
+    }
+
+    private static final class Scale extends MatrixExpression {
+
+        private final MatrixExpression expression;
+        private final int factor;
+
+        Scale(MatrixExpression expression, int factor) {
+            super(expression.getRowLength(), expression.getColLength());
+            this.expression = expression;
+            this.factor = factor;
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            return new Scale(expression.transpose(), factor);
+        }
+
+        @Override
+        void evaluate(Matrix target, int factor, boolean accumulate, BufferPool pool) {
+            expression.evaluate(target, factor * this.factor, accumulate, pool);
+        }
+    }
+
+    /*
+        Scratch buffers for materialized operands. A released buffer is
+        handed out again to the next operand that fits in it.
+     */
+    static final class BufferPool {
+
+        private final List<int[]> free = new ArrayList<>();
+        private final List<Matrix> leased = new ArrayList<>();
+
+        Matrix acquire(int rows, int cols) {
+            final int size = rows * cols;
+            int[] buffer = null;
+            for (int i = 0; i < free.size(); i++) {
+                if (free.get(i).length >= size) {
+                    buffer = free.remove(i);
+                    break;
+                }
+            }
+            final Matrix matrix = new Matrix(buffer == null ? new int[size] : buffer, rows, cols, 0, cols);
+            leased.add(matrix);
+            return matrix;
+        }
+
+        void release(Matrix matrix) {
+            for (int i = 0; i < leased.size(); i++) {
+                if (leased.get(i) == matrix) {
+                    leased.remove(i);
+                    free.add(matrix.data());
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package se.andolf.matrix;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+    Binary layout of a matrix file
+
+    offset  size  field
+    0       4     magic, the bytes "MTRX"
+    4       2     format version
+    6       1     element type
+    7       1     flags
+    8       4     rows
+    12      4     columns
+    16      4     checksum chunk size in bytes, 0 without checksums
+    20      12    reserved, zero
+
+    followed by rows * columns elements in row-major order. Everything is
+    little-endian. The header is 32 bytes so the payload stays aligned for
+    every element type, which lets it be memory mapped and read in place.
+
+    With the checksum flag set the payload is followed by a CRC32 of every
+    chunk of the payload, the last chunk may be shorter. Keeping them after
+    the payload rather than between chunks keeps the payload contiguous, so
+    checksummed files can still be mapped.
+ */
+final class MatrixFormat {
+
+    static final int HEADER_SIZE = 32;
+    static final int MAGIC = 0x5852544D;
+    static final short VERSION = 1;
+
+    static final byte TYPE_INT = 1;
+    static final byte TYPE_LONG = 2;
+    static final byte TYPE_DOUBLE = 3;
+
+    static final byte FLAG_CHECKSUMS = 1;
+
+    private MatrixFormat() {
+    }
+
+    static int elementSize(byte type) {
+        switch (type) {
+            case TYPE_INT:
+                return Integer.BYTES;
+            case TYPE_LONG:
+                return Long.BYTES;
+            case TYPE_DOUBLE:
+                return Double.BYTES;
+            default:
+                throw new IllegalArgumentException("Unknown element type " + type);
+        }
+    }
+
+    static ByteBuffer header(byte type, byte flags, int rows, int cols) {
+        return header(type, flags, rows, cols, 0);
+    }
+
+    static ByteBuffer header(byte type, byte flags, int rows, int cols, int chunkSize) {
+        if (!isValidChunkSize(type, flags, chunkSize))
+            throw new IllegalArgumentException("Invalid checksum chunk size " + chunkSize);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC)
+                .putShort(VERSION)
+                .put(type)
+                .put(flags)
+                .putInt(rows)
+                .putInt(cols)
+                .putInt(chunkSize);
+        header.position(0);
+        return header;
+    }
+
+    /*
+        Everything wrong with the header is wrong with the data that was
+        read, so it is reported as an IOException like the rest of the
+        reading errors.
+     */
+    static Header read(ByteBuffer buffer) throws IOException {
+        final ByteBuffer header = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (header.remaining() < HEADER_SIZE)
+            throw new EOFException("Matrix header is truncated");
+        if (header.getInt() != MAGIC)
+            throw new IOException("Not a matrix file");
+        final short version = header.getShort();
+        if (version != VERSION)
+            throw new IOException("Unsupported matrix file version " + version);
+        final byte type = header.get();
+        final byte flags = header.get();
+        final int rows = header.getInt();
+        final int cols = header.getInt();
+        final int chunkSize = header.getInt();
+        if (type != TYPE_INT && type != TYPE_LONG && type != TYPE_DOUBLE)
+            throw new IOException("Unknown element type " + type);
+        if (rows < 0 || cols < 0)
+            throw new IOException("Invalid dimensions " + rows + "x" + cols);
+        if (!isValidChunkSize(type, flags, chunkSize))
+            throw new IOException("Invalid checksum chunk size " + chunkSize);
+        return new Header(type, flags, rows, cols, chunkSize);
+    }
+
+    /*
+        A chunk must hold whole elements, otherwise the reader would have to
+        split an element between two reads and the chunk boundaries would
+        not line up with the payload. Without checksums there are no chunks
+        and the size must be 0.
+     */
+    private static boolean isValidChunkSize(byte type, byte flags, int chunkSize) {
+        if ((flags & FLAG_CHECKSUMS) == 0)
+            return chunkSize == 0;
+        return chunkSize > 0 && chunkSize % elementSize(type) == 0;
+    }
+
+    static final class Header {
+
+        final byte type;
+        final byte flags;
+        final int rows;
+        final int cols;
+        final int chunkSize;
+
+        Header(byte type, byte flags, int rows, int cols, int chunkSize) {
+            this.type = type;
+            this.flags = flags;
+            this.rows = rows;
+            this.cols = cols;
+            this.chunkSize = chunkSize;
+        }
+
+        boolean hasChecksums() {
+            return (flags & FLAG_CHECKSUMS) != 0;
+        }
+
+        long payloadSize(int elementSize) {
+            return (long) rows * cols * elementSize;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package se.andolf.matrix;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Reads matrices written by MatrixWriter, or created by MappedMatrix, from
+ * a channel. The payload is streamed through one reusable direct buffer
+ * straight into the storage of the new matrix. When the file carries
+ * checksums every chunk is verified, and a mismatch is reported as an
+ * IOException.
+ *
+ * The header is checked before anything is allocated for the matrix. A
+ * truncated or corrupt header, an element type other than the one asked
+ * for, a matrix with more elements than fit in an array, or, on a seekable
+ * channel, a payload longer than what is left of the channel, is rejected
+ * with an IOException.
+ *
+ * The channel is not closed by the reader.
+ */
+public class MatrixReader {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(MatrixWriter.BUFFER_SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final IntBuffer ints = buffer.asIntBuffer();
+    private final LongBuffer longs = buffer.asLongBuffer();
+    private final DoubleBuffer doubles = buffer.asDoubleBuffer();
+    private final CRC32 crc = new CRC32();
+
+    private MatrixFormat.Header header;
+    private long remaining;
+    private long bytesInChunk;
+    private int chunks;
+    private int[] chunkChecksums;
+
+    public MatrixReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public Matrix readMatrix() throws IOException {
+        begin(MatrixFormat.TYPE_INT);
+        final Matrix matrix = new Matrix(header.rows, header.cols);
+        final int[] data = matrix.data();
+        read(data.length, Integer.BYTES, (to, count) -> ints.position(0).get(data, to, count));
+        return matrix;
+    }
+
+    public LongMatrix readLongMatrix() throws IOException {
+        begin(MatrixFormat.TYPE_LONG);
+        final LongMatrix matrix = new LongMatrix(header.rows, header.cols);
+        final long[] data = matrix.data();
+        read(data.length, Long.BYTES, (to, count) -> longs.position(0).get(data, to, count));
+        return matrix;
+    }
+
+    public DoubleMatrix readDoubleMatrix() throws IOException {
+        begin(MatrixFormat.TYPE_DOUBLE);
+        final DoubleMatrix matrix = new DoubleMatrix(header.rows, header.cols);
+        final double[] data = matrix.data();
+        read(data.length, Double.BYTES, (to, count) -> doubles.position(0).get(data, to, count));
+        return matrix;
+    }
+
+    /*
+        Reads the payload one buffer at a time into the storage of the new
+        matrix and then verifies the checksums. Every fill holds whole
+        elements from the start of the buffer.
+     */
+    private void read(int length, int elementSize, Elements elements) throws IOException {
+        int position = 0;
+        while (position < length) {
+            fill();
+            final int count = buffer.remaining() / elementSize;
+            elements.get(position, count);
+            position += count;
+        }
+        end();
+    }
+
+    private void begin(byte type) throws IOException {
+        final ByteBuffer bytes = ByteBuffer.allocate(MatrixFormat.HEADER_SIZE);
+        readFully(bytes);
+        bytes.flip();
+        header = MatrixFormat.read(bytes);
+        if (header.type != type)
+            throw new IOException("Expected element type " + type + ", was " + header.type);
+        final long elements = (long) header.rows * header.cols;
+        if (elements > Integer.MAX_VALUE)
+            throw new IOException("Matrix of " + header.rows + "x" + header.cols + " is too large to read");
+        remaining = header.payloadSize(MatrixFormat.elementSize(type));
+        final long chunkCount = header.hasChecksums() ? (remaining + header.chunkSize - 1) / header.chunkSize : 0;
+        checkAvailable(remaining + chunkCount * Integer.BYTES);
+        crc.reset();
+        bytesInChunk = 0;
+        chunks = 0;
+        if (header.hasChecksums())
+            chunkChecksums = new int[(int) Math.min(chunkCount, 16)];
+    }
+
+    /*
+        Only a seekable channel knows how much is left of it. On any other
+        channel a short payload is found when the stream ends early.
+     */
+    private void checkAvailable(long size) throws IOException {
+        if (!(channel instanceof SeekableByteChannel))
+            return;
+        final SeekableByteChannel seekable = (SeekableByteChannel) channel;
+        final long available = seekable.size() - seekable.position();
+        if (size > available)
+            throw new EOFException("Matrix of " + size + " bytes, only " + available + " left");
+    }
+
+    /*
+        Reads the next part of the payload into the buffer, at most up to
+        the end of the current checksum chunk so that the checksum of every
+        chunk is computed on exactly its own bytes.
+     */
+    private void fill() throws IOException {
+        buffer.clear();
+        long limit = Math.min(buffer.capacity(), remaining);
+        if (header.hasChecksums())
+            limit = Math.min(limit, header.chunkSize - bytesInChunk);
+        buffer.limit((int) limit);
+        readFully(buffer);
+        buffer.flip();
+        remaining -= limit;
+        if (header.hasChecksums()) {
+            crc.update(buffer.duplicate());
+            bytesInChunk += limit;
+            if (bytesInChunk == header.chunkSize || remaining == 0) {
+                if (chunks == chunkChecksums.length)
+                    chunkChecksums = Arrays.copyOf(chunkChecksums, 2 * chunks);
+                chunkChecksums[chunks++] = (int) crc.getValue();
+                crc.reset();
+                bytesInChunk = 0;
+            }
+        }
+    }
+
+    /*
+        Verifies the checksums in the trailer, read through the same buffer
+        as the payload.
+     */
+    private void end() throws IOException {
+        if (!header.hasChecksums())
+            return;
+        int chunk = 0;
+        while (chunk < chunks) {
+            buffer.clear();
+            buffer.limit(Math.min(buffer.capacity() / Integer.BYTES, chunks - chunk) * Integer.BYTES);
+            readFully(buffer);
+            buffer.flip();
+            for (; buffer.hasRemaining(); chunk++) {
+                if (buffer.getInt() != chunkChecksums[chunk])
+                    throw new IOException("Checksum mismatch in chunk " + chunk);
+            }
+        }
+    }
+
+    private void readFully(ByteBuffer target) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target) < 0)
+                throw new EOFException("Matrix stream ended early");
+        }
+    }
+
+    /*
+        Copies count elements from the start of the buffer into the storage
+        of the matrix, starting at to.
+     */
+    private interface Elements {
+        void get(int to, int count);
+    }
+}
@@ -0,0 +1,153 @@
+package se.andolf.matrix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Writes matrices to a channel in the binary layout described in
+ * MatrixFormat. Rows are copied straight from the storage of the matrix
+ * into one reusable direct buffer, so no text or intermediate arrays are
+ * built no matter how large the matrix is.
+ *
+ * The channel is not closed by the writer.
+ */
+public class MatrixWriter {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final int CHUNK_SIZE = 1024 * 1024;
+
+    private final WritableByteChannel channel;
+    private final boolean checksums;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final IntBuffer ints = buffer.asIntBuffer();
+    private final LongBuffer longs = buffer.asLongBuffer();
+    private final DoubleBuffer doubles = buffer.asDoubleBuffer();
+    private final CRC32 crc = new CRC32();
+
+    private int[] chunkChecksums = new int[16];
+    private int chunks;
+    private int bytesInChunk;
+
+    /**
+     * @param channel the channel to write to
+     * @param checksums if a CRC32 of every 1 MiB chunk of the payload should be written
+     */
+    public MatrixWriter(WritableByteChannel channel, boolean checksums) {
+        this.channel = channel;
+        this.checksums = checksums;
+    }
+
+    public MatrixWriter(WritableByteChannel channel) {
+        this(channel, false);
+    }
+
+    public void write(Matrix matrix) throws IOException {
+        final int[] data = matrix.data();
+        write(MatrixFormat.TYPE_INT, matrix.getRowLength(), matrix.getColLength(), matrix.offset(), matrix.stride(),
+                (from, index, count) -> ints.position(index).put(data, from, count));
+    }
+
+    public void write(LongMatrix matrix) throws IOException {
+        final long[] data = matrix.data();
+        write(MatrixFormat.TYPE_LONG, matrix.getRowLength(), matrix.getColLength(), matrix.offset(), matrix.stride(),
+                (from, index, count) -> longs.position(index).put(data, from, count));
+    }
+
+    public void write(DoubleMatrix matrix) throws IOException {
+        final double[] data = matrix.data();
+        write(MatrixFormat.TYPE_DOUBLE, matrix.getRowLength(), matrix.getColLength(), matrix.offset(),
+                matrix.stride(), (from, index, count) -> doubles.position(index).put(data, from, count));
+    }
+
+    /*
+        Copies the matrix row by row into the buffer, draining it whenever
+        it is full. The buffer only ever holds whole elements, so its
+        position divided by the element size is where the next element goes
+        in the typed views.
+     */
+    private void write(byte type, int rows, int cols, int offset, int stride, Elements elements) throws IOException {
+        final int elementSize = MatrixFormat.elementSize(type);
+        begin(type, rows, cols);
+        for (int x = 0; x < rows; x++) {
+            int from = offset + x * stride;
+            int remaining = cols;
+            while (remaining > 0) {
+                final int count = Math.min(remaining, buffer.remaining() / elementSize);
+                if (count == 0) {
+                    drain();
+                    continue;
+                }
+                elements.put(from, buffer.position() / elementSize, count);
+                buffer.position(buffer.position() + count * elementSize);
+                from += count;
+                remaining -= count;
+            }
+        }
+        end();
+    }
+
+    private void begin(byte type, int rows, int cols) throws IOException {
+        final byte flags = checksums ? MatrixFormat.FLAG_CHECKSUMS : 0;
+        writeFully(MatrixFormat.header(type, flags, rows, cols, checksums ? CHUNK_SIZE : 0));
+        buffer.clear();
+        crc.reset();
+        chunks = 0;
+        bytesInChunk = 0;
+    }
+
+    private void end() throws IOException {
+        drain();
+        if (!checksums)
+            return;
+        if (bytesInChunk > 0)
+            finishChunk();
+        final ByteBuffer trailer = ByteBuffer.allocate(chunks * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        trailer.asIntBuffer().put(chunkChecksums, 0, chunks);
+        writeFully(trailer);
+    }
+
+    /*
+        Every drain but the last one is a full buffer, and the chunk size is
+        a multiple of the buffer size, so chunks always end on a drain.
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        if (checksums && buffer.hasRemaining()) {
+            crc.update(buffer.duplicate());
+            bytesInChunk += buffer.remaining();
+            if (bytesInChunk == CHUNK_SIZE)
+                finishChunk();
+        }
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void finishChunk() {
+        if (chunks == chunkChecksums.length)
+            chunkChecksums = Arrays.copyOf(chunkChecksums, chunks * 2);
+        chunkChecksums[chunks++] = (int) crc.getValue();
+        crc.reset();
+        bytesInChunk = 0;
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    /*
+        Copies count elements of a matrix, starting at from in its storage,
+        into the buffer at the given element index.
+     */
+    private interface Elements {
+        void put(int from, int index, int count);
+    }
+}
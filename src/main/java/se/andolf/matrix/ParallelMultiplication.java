@@ -0,0 +1,65 @@
+package se.andolf.matrix;
+
+import java.util.concurrent.RecursiveAction;
+
+/*
+    Parallel matrix product, C += A * B
+
+    Every cell of C only depends on one row of A and one column of B, so C
+    can be cut into tiles that are computed independently. We keep halving
+    the longest side of the tile, taking the matching rows of A or columns
+    of B along with it, until the work left in a tile is below the
+    threshold. The tiles are views over the same buffers so splitting never
+    copies anything, and each leaf runs the blocked kernel.
+ */
+final class ParallelMultiplication extends RecursiveAction {
+
+    private final Matrix a;
+    private final Matrix b;
+    private final Matrix c;
+    private final long threshold;
+
+    ParallelMultiplication(Matrix a, Matrix b, Matrix c, long threshold) {
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.threshold = threshold;
+    }
+
+    static void multiply(Matrix a, Matrix b, Matrix c, Parallelism parallelism) {
+        if (parallelism.isSequential() || work(a, b) <= parallelism.threshold()) {
+            VectorizedMultiplication.multiply(a, b, c);
+            return;
+        }
+        parallelism.pool().invoke(new ParallelMultiplication(a, b, c, parallelism.threshold()));
+    }
+
+    @Override
+    protected void compute() {
+        final int rows = c.getRowLength();
+        final int cols = c.getColLength();
+        if (work(a, b) <= threshold || (rows < 2 && cols < 2)) {
+            VectorizedMultiplication.multiply(a, b, c);
+        } else if (rows >= cols) {
+            final int half = rows / 2;
+            final int inner = a.getColLength();
+            invokeAll(
+                    new ParallelMultiplication(a.subMatrix(0, 0, half, inner), b,
+                            c.subMatrix(0, 0, half, cols), threshold),
+                    new ParallelMultiplication(a.subMatrix(half, 0, rows - half, inner), b,
+                            c.subMatrix(half, 0, rows - half, cols), threshold));
+        } else {
+            final int half = cols / 2;
+            final int inner = b.getRowLength();
+            invokeAll(
+                    new ParallelMultiplication(a, b.subMatrix(0, 0, inner, half),
+                            c.subMatrix(0, 0, rows, half), threshold),
+                    new ParallelMultiplication(a, b.subMatrix(0, half, inner, cols - half),
+                            c.subMatrix(0, half, rows, cols - half), threshold));
+        }
+    }
+
+    private static long work(Matrix a, Matrix b) {
+        return (long) a.getRowLength() * a.getColLength() * b.getColLength();
+    }
+}
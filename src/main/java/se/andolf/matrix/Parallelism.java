@@ -0,0 +1,74 @@
+package se.andolf.matrix;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Describes how a matrix operation may be split across threads.
+ *
+ * Work is counted in multiply-adds, a product of a n x m and a m x p
+ * matrix is n * m * p units of work. Tasks smaller than the threshold
+ * are run sequentially on the thread that owns them.
+ */
+public final class Parallelism {
+
+    /**
+     * Roughly a couple of milliseconds of work for the blocked kernel,
+     * enough to make the cost of forking a task negligible.
+     */
+    public static final long DEFAULT_THRESHOLD = 1L << 22;
+
+    private static final Parallelism SEQUENTIAL = new Parallelism(null, Long.MAX_VALUE);
+
+    private final ForkJoinPool pool;
+    private final long threshold;
+
+    private Parallelism(ForkJoinPool pool, long threshold) {
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return run everything on the calling thread
+     */
+    public static Parallelism sequential() {
+        return SEQUENTIAL;
+    }
+
+    /**
+     * @return split the work over the common fork join pool
+     */
+    public static Parallelism commonPool() {
+        return of(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool the pool to split the work over
+     * @return split the work over the given pool
+     */
+    public static Parallelism of(ForkJoinPool pool) {
+        return new Parallelism(Objects.requireNonNull(pool), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold units of work below which a task is not split any further
+     * @return a copy of this with the given threshold
+     */
+    public Parallelism withThreshold(long threshold) {
+        if (threshold < 1)
+            throw new IllegalArgumentException("Threshold must be positive, was " + threshold);
+        return pool == null ? this : new Parallelism(pool, threshold);
+    }
+
+    public boolean isSequential() {
+        return pool == null;
+    }
+
+    ForkJoinPool pool() {
+        return pool;
+    }
+
+    long threshold() {
+        return threshold;
+    }
+}
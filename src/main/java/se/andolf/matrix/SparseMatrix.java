@@ -0,0 +1,299 @@
+package se.andolf.matrix;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/*
+    A matrix of ints where only the non zero cells are stored.
+
+    The cells are kept twice, once compressed by row (CSR) and once
+    compressed by column (CSC):
+
+    rowPointers[x] .. rowPointers[x + 1]        are the cells of row x, with
+    columnIndices[i], rowValues[i]              the column and value of each
+
+    columnPointers[y] .. columnPointers[y + 1]  are the cells of column y, with
+    rowIndices[i], columnValues[i]              the row and value of each
+
+    Within a row or column the cells are sorted by index, so single cells
+    are found with a binary search. Both rows and columns can be read in
+    time proportional to their number of non zero cells, and memory and
+    multiplication time scale with the number of non zero cells instead
+    of rows * cols.
+ */
+public class SparseMatrix {
+
+    private final int rows;
+    private final int cols;
+
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    private final int[] rowValues;
+
+    private final int[] columnPointers;
+    private final int[] rowIndices;
+    private final int[] columnValues;
+
+    /**
+     * Creates a sparse matrix from its compressed sparse row form. The
+     * arrays are copied.
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param rowPointers rows + 1 ascending offsets into columnIndices and values
+     * @param columnIndices column of each cell, ascending within a row
+     * @param values value of each cell, none of them zero
+     */
+    public SparseMatrix(int rows, int cols, int[] rowPointers, int[] columnIndices, int[] values) {
+        this(rows, cols, rowPointers.clone(), columnIndices.clone(), values.clone(), true);
+    }
+
+    private SparseMatrix(int rows, int cols, int[] rowPointers, int[] columnIndices, int[] values, boolean validate) {
+        if (validate)
+            validate(rows, cols, rowPointers, columnIndices, values);
+        this.rows = rows;
+        this.cols = cols;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.rowValues = values;
+
+        final int nonZeros = rowPointers[rows];
+        this.columnPointers = new int[cols + 1];
+        this.rowIndices = new int[nonZeros];
+        this.columnValues = new int[nonZeros];
+        for (int i = 0; i < nonZeros; i++) {
+            columnPointers[columnIndices[i] + 1]++;
+        }
+        for (int y = 0; y < cols; y++) {
+            columnPointers[y + 1] += columnPointers[y];
+        }
+        final int[] next = Arrays.copyOf(columnPointers, cols);
+        for (int x = 0; x < rows; x++) {
+            for (int i = rowPointers[x]; i < rowPointers[x + 1]; i++) {
+                final int position = next[columnIndices[i]]++;
+                rowIndices[position] = x;
+                columnValues[position] = values[i];
+            }
+        }
+    }
+
+    public static SparseMatrix of(Matrix matrix) {
+        final int rows = matrix.getRowLength();
+        final int cols = matrix.getColLength();
+        final int[] data = matrix.data();
+        final int[] rowPointers = new int[rows + 1];
+        for (int x = 0; x < rows; x++) {
+            int count = 0;
+            for (int i = matrix.offset() + x * matrix.stride(), end = i + cols; i < end; i++) {
+                if (data[i] != 0)
+                    count++;
+            }
+            rowPointers[x + 1] = rowPointers[x] + count;
+        }
+        final int[] columnIndices = new int[rowPointers[rows]];
+        final int[] values = new int[rowPointers[rows]];
+        for (int x = 0, position = 0; x < rows; x++) {
+            final int start = matrix.offset() + x * matrix.stride();
+            for (int y = 0; y < cols; y++) {
+                if (data[start + y] != 0) {
+                    columnIndices[position] = y;
+                    values[position++] = data[start + y];
+                }
+            }
+        }
+        return new SparseMatrix(rows, cols, rowPointers, columnIndices, values, false);
+    }
+
+    public Matrix toMatrix() {
+        final Matrix matrix = new Matrix(rows, cols);
+        final int[] data = matrix.data();
+        for (int x = 0; x < rows; x++) {
+            for (int i = rowPointers[x]; i < rowPointers[x + 1]; i++) {
+                data[x * cols + columnIndices[i]] = rowValues[i];
+            }
+        }
+        return matrix;
+    }
+
+    public int get(int x, int y) {
+        if (x < 0 || x >= rows || y < 0 || y >= cols)
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is outside of a "
+                    + rows + "x" + cols + " matrix");
+        final int i = Arrays.binarySearch(columnIndices, rowPointers[x], rowPointers[x + 1], y);
+        return i < 0 ? 0 : rowValues[i];
+    }
+
+    public int[] getRow(int x) {
+        Objects.checkIndex(x, rows);
+        final int[] row = new int[cols];
+        for (int i = rowPointers[x]; i < rowPointers[x + 1]; i++) {
+            row[columnIndices[i]] = rowValues[i];
+        }
+        return row;
+    }
+
+    public int[] getColumn(int y) {
+        Objects.checkIndex(y, cols);
+        final int[] column = new int[rows];
+        for (int i = columnPointers[y]; i < columnPointers[y + 1]; i++) {
+            column[rowIndices[i]] = columnValues[i];
+        }
+        return column;
+    }
+
+    public int getRowLength() {
+        return rows;
+    }
+
+    public int getColLength() {
+        return cols;
+    }
+
+    public int getNonZeros() {
+        return rowPointers[rows];
+    }
+
+    /*
+        Sparse x dense, every non zero A[x][k] adds A[x][k] * row k of B to
+        row x of C.
+
+        solution: Θ(nnz(A) * p)
+     */
+    public Matrix multiply(Matrix matrix) {
+        checkMultipliable(cols, matrix.getRowLength());
+        final int p = matrix.getColLength();
+        final Matrix product = new Matrix(rows, p);
+        final int[] b = matrix.data();
+        final int[] c = product.data();
+        final int[] accumulator = new int[p];
+        for (int x = 0; x < rows; x++) {
+            if (rowPointers[x] == rowPointers[x + 1])
+                continue;
+            Arrays.fill(accumulator, 0);
+            for (int i = rowPointers[x]; i < rowPointers[x + 1]; i++) {
+                final int value = rowValues[i];
+                final int bRow = matrix.offset() + columnIndices[i] * matrix.stride();
+                for (int j = 0; j < p; j++) {
+                    accumulator[j] += value * b[bRow + j];
+                }
+            }
+            System.arraycopy(accumulator, 0, c, x * p, p);
+        }
+        return product;
+    }
+
+    /*
+        Sparse x sparse, Gustavson's algorithm. Row x of C is accumulated in
+        a dense scratch row, with a marker per column telling if it has been
+        touched by row x yet, so only touched columns are visited afterwards.
+
+        solution: Θ(flops + nnz(C) log nnz(row)) where flops is the number of
+        non zero products
+     */
+    public SparseMatrix multiply(SparseMatrix matrix) {
+        checkMultipliable(cols, matrix.rows);
+        final int p = matrix.cols;
+        final int[] accumulator = new int[p];
+        final int[] marker = new int[p];
+        Arrays.fill(marker, -1);
+        final int[] touched = new int[p];
+
+        final int[] productPointers = new int[rows + 1];
+        int[] productIndices = new int[Math.max(16, getNonZeros() + matrix.getNonZeros())];
+        int[] productValues = new int[productIndices.length];
+        int size = 0;
+        for (int x = 0; x < rows; x++) {
+            int count = 0;
+            for (int i = rowPointers[x]; i < rowPointers[x + 1]; i++) {
+                final int k = columnIndices[i];
+                final int value = rowValues[i];
+                for (int l = matrix.rowPointers[k]; l < matrix.rowPointers[k + 1]; l++) {
+                    final int y = matrix.columnIndices[l];
+                    if (marker[y] != x) {
+                        marker[y] = x;
+                        accumulator[y] = 0;
+                        touched[count++] = y;
+                    }
+                    accumulator[y] += value * matrix.rowValues[l];
+                }
+            }
+            Arrays.sort(touched, 0, count);
+            if (size + count > productIndices.length) {
+                final int capacity = Math.max(size + count, productIndices.length * 2);
+                productIndices = Arrays.copyOf(productIndices, capacity);
+                productValues = Arrays.copyOf(productValues, capacity);
+            }
+            for (int t = 0; t < count; t++) {
+                final int y = touched[t];
+                if (accumulator[y] != 0) {
+                    productIndices[size] = y;
+                    productValues[size++] = accumulator[y];
+                }
+            }
+            productPointers[x + 1] = size;
+        }
+        return new SparseMatrix(rows, p, productPointers,
+                Arrays.copyOf(productIndices, size), Arrays.copyOf(productValues, size), false);
+    }
+
+    /*
+        Dense x sparse, every A[x][k] adds A[x][k] * row k of B to row x of C,
+        only visiting the non zero cells of B.
+
+        solution: Θ(n * nnz(B))
+     */
+    static Matrix multiply(Matrix matrix, SparseMatrix sparse) {
+        checkMultipliable(matrix.getColLength(), sparse.rows);
+        final int n = matrix.getRowLength();
+        final int m = sparse.rows;
+        final int p = sparse.cols;
+        final Matrix product = new Matrix(n, p);
+        final int[] a = matrix.data();
+        final int[] c = product.data();
+        for (int x = 0; x < n; x++) {
+            final int aRow = matrix.offset() + x * matrix.stride();
+            final int cRow = x * p;
+            for (int k = 0; k < m; k++) {
+                final int value = a[aRow + k];
+                if (value == 0)
+                    continue;
+                for (int i = sparse.rowPointers[k]; i < sparse.rowPointers[k + 1]; i++) {
+                    c[cRow + sparse.columnIndices[i]] += value * sparse.rowValues[i];
+                }
+            }
+        }
+        return product;
+    }
+
+    @Override
+    public String toString() {
+        return toMatrix().toString();
+    }
+
+    private static void checkMultipliable(int cols, int rows) {
+        if (cols != rows)
+            throw new IllegalArgumentException("Cannot multiply a matrix with " + cols
+                    + " columns with a matrix with " + rows + " rows");
+    }
+
+    private static void validate(int rows, int cols, int[] rowPointers, int[] columnIndices, int[] values) {
+        if (rows < 0 || cols < 0 || rowPointers.length != rows + 1 || rowPointers[0] != 0)
+            throw new IllegalArgumentException("Expected " + (rows + 1) + " row pointers starting at 0");
+        final int nonZeros = rowPointers[rows];
+        if (columnIndices.length != nonZeros || values.length != nonZeros)
+            throw new IllegalArgumentException("Expected " + nonZeros + " column indices and values");
+        for (int x = 0; x < rows; x++) {
+            if (rowPointers[x] > rowPointers[x + 1])
+                throw new IllegalArgumentException("Row pointers must be ascending, row " + x);
+            for (int i = rowPointers[x]; i < rowPointers[x + 1]; i++) {
+                if (columnIndices[i] < 0 || columnIndices[i] >= cols
+                        || (i > rowPointers[x] && columnIndices[i] <= columnIndices[i - 1]))
+                    throw new IllegalArgumentException("Column indices must be ascending and within 0.."
+                            + (cols - 1) + ", row " + x);
+                if (values[i] == 0)
+                    throw new IllegalArgumentException("Stored cells must be non zero, row " + x
+                            + " column " + columnIndices[i]);
+            }
+        }
+    }
+}
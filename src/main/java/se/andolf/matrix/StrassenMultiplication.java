@@ -0,0 +1,230 @@
+package se.andolf.matrix;
+
+import java.util.Arrays;
+
+/*
+    Strassen matrix product, C = A * B, for square matrices
+
+    Split A, B and C into four quadrants each. The classical product needs
+    eight quadrant products, Strassen gets away with seven by multiplying
+    sums of quadrants:
+
+    M1 = (A11 + A22)(B11 + B22)     C11 = M1 + M4 - M5 + M7
+    M2 = (A21 + A22) B11            C12 = M3 + M5
+    M3 = A11 (B12 - B22)            C21 = M2 + M4
+    M4 = A22 (B21 - B11)            C22 = M1 - M2 + M3 + M6
+    M5 = (A11 + A12) B22
+    M6 = (A21 - A11)(B11 + B12)
+    M7 = (A12 - A22)(B21 + B22)
+
+    Applied recursively down to the cutover size, where the classical
+    kernel takes over since the extra additions stop paying for themselves.
+    The leaves go through the same SIMD or blocked kernel as any other
+    product. The
+    side is padded with zeroes to leaf * 2^depth, with the leaf size no
+    larger than the cutover, so at most leaf - 1 rows of padding are added.
+
+    Every level needs three scratch quadrants, two for the operand sums and
+    one for the product. They are carved out of one workspace allocated up
+    front, level by level, and reused by all seven products on that level.
+    Every leaf has the same size, so the packing scratch of the leaf kernel
+    is allocated once as well.
+
+    The arithmetic wraps exactly like the classical kernel does, int is a
+    ring modulo 2^32, so overflowing products give the same result.
+
+    solution: Θ(n^2.81)
+ */
+final class StrassenMultiplication {
+
+    /*
+        A tuning guess, not a measured optimum. Below twice the cutover a
+        single level is not expected to beat the blocked kernel, so Matrix
+        only picks Strassen above that. Compare MatrixBenchmark.sequential
+        with MatrixBenchmark.blocked in the benchmarks build before changing
+        it.
+     */
+    static final int CUTOVER = 512;
+
+    private final int[] workspace;
+    private final int[] levelOffsets;
+    private final int depth;
+    private final BlockedMultiplication.IntScratch leafScratch;
+
+    private StrassenMultiplication(int size, int depth) {
+        this.depth = depth;
+        this.leafScratch = new BlockedMultiplication.IntScratch(size >> depth, size >> depth);
+        this.levelOffsets = new int[depth];
+        int total = 0;
+        for (int level = 0, half = size / 2; level < depth; level++, half /= 2) {
+            levelOffsets[level] = total;
+            total += 3 * half * half;
+        }
+        this.workspace = new int[total];
+    }
+
+    static boolean isApplicable(Matrix a, Matrix b) {
+        final int n = a.getRowLength();
+        return n > 2 * CUTOVER && a.getColLength() == n && b.getRowLength() == n && b.getColLength() == n
+                && canPad(n, CUTOVER);
+    }
+
+    /*
+        The padded side can be larger than n, so a padded matrix may not fit
+        in an array even though an n x n one does.
+     */
+    static boolean canPad(int n, int cutover) {
+        final int depth = depth(n, cutover);
+        final long size = (long) ceilDiv(n, 1 << depth) << depth;
+        return size * size <= Integer.MAX_VALUE;
+    }
+
+    static void multiply(Matrix a, Matrix b, Matrix c) {
+        multiply(a, b, c, CUTOVER);
+    }
+
+    static void multiply(Matrix a, Matrix b, Matrix c, int cutover) {
+        final int n = a.getRowLength();
+        if (!canPad(n, cutover))
+            throw new IllegalArgumentException("Cannot pad a " + n + "x" + n + " matrix for Strassen");
+        final int depth = depth(n, cutover);
+        final int size = ceilDiv(n, 1 << depth) << depth;
+        final StrassenMultiplication strassen = new StrassenMultiplication(size, depth);
+
+        if (size == n) {
+            strassen.multiply(a.data(), a.offset(), a.stride(), b.data(), b.offset(), b.stride(),
+                    c.data(), c.offset(), c.stride(), size, 0);
+            return;
+        }
+        final int[] paddedA = pad(a, size);
+        final int[] paddedB = pad(b, size);
+        final int[] paddedC = new int[size * size];
+        strassen.multiply(paddedA, 0, size, paddedB, 0, size, paddedC, 0, size, size, 0);
+        for (int x = 0; x < n; x++) {
+            System.arraycopy(paddedC, x * size, c.data(), c.offset() + x * c.stride(), n);
+        }
+    }
+
+    private void multiply(int[] a, int aOffset, int aStride,
+                          int[] b, int bOffset, int bStride,
+                          int[] c, int cOffset, int cStride,
+                          int size, int level) {
+        if (level == depth) {
+            clear(c, cOffset, cStride, size);
+            VectorizedMultiplication.multiply(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride,
+                    size, size, size, leafScratch);
+            return;
+        }
+        final int h = size / 2;
+        final int s = levelOffsets[level];
+        final int t = s + h * h;
+        final int p = t + h * h;
+        final int[] w = workspace;
+
+        final int a11 = aOffset, a12 = aOffset + h, a21 = aOffset + h * aStride, a22 = a21 + h;
+        final int b11 = bOffset, b12 = bOffset + h, b21 = bOffset + h * bStride, b22 = b21 + h;
+        final int c11 = cOffset, c12 = cOffset + h, c21 = cOffset + h * cStride, c22 = c21 + h;
+
+        // M1 = (A11 + A22)(B11 + B22)
+        combine(a, a11, aStride, a, a22, aStride, 1, w, s, h);
+        combine(b, b11, bStride, b, b22, bStride, 1, w, t, h);
+        multiply(w, s, h, w, t, h, w, p, h, h, level + 1);
+        accumulate(w, p, c, c11, cStride, h, 0);
+        accumulate(w, p, c, c22, cStride, h, 0);
+
+        // M2 = (A21 + A22) B11
+        combine(a, a21, aStride, a, a22, aStride, 1, w, s, h);
+        multiply(w, s, h, b, b11, bStride, w, p, h, h, level + 1);
+        accumulate(w, p, c, c21, cStride, h, 0);
+        accumulate(w, p, c, c22, cStride, h, -1);
+
+        // M3 = A11 (B12 - B22)
+        combine(b, b12, bStride, b, b22, bStride, -1, w, t, h);
+        multiply(a, a11, aStride, w, t, h, w, p, h, h, level + 1);
+        accumulate(w, p, c, c12, cStride, h, 0);
+        accumulate(w, p, c, c22, cStride, h, 1);
+
+        // M4 = A22 (B21 - B11)
+        combine(b, b21, bStride, b, b11, bStride, -1, w, t, h);
+        multiply(a, a22, aStride, w, t, h, w, p, h, h, level + 1);
+        accumulate(w, p, c, c11, cStride, h, 1);
+        accumulate(w, p, c, c21, cStride, h, 1);
+
+        // M5 = (A11 + A12) B22
+        combine(a, a11, aStride, a, a12, aStride, 1, w, s, h);
+        multiply(w, s, h, b, b22, bStride, w, p, h, h, level + 1);
+        accumulate(w, p, c, c11, cStride, h, -1);
+        accumulate(w, p, c, c12, cStride, h, 1);
+
+        // M6 = (A21 - A11)(B11 + B12)
+        combine(a, a21, aStride, a, a11, aStride, -1, w, s, h);
+        combine(b, b11, bStride, b, b12, bStride, 1, w, t, h);
+        multiply(w, s, h, w, t, h, w, p, h, h, level + 1);
+        accumulate(w, p, c, c22, cStride, h, 1);
+
+        // M7 = (A12 - A22)(B21 + B22)
+        combine(a, a12, aStride, a, a22, aStride, -1, w, s, h);
+        combine(b, b21, bStride, b, b22, bStride, 1, w, t, h);
+        multiply(w, s, h, w, t, h, w, p, h, h, level + 1);
+        accumulate(w, p, c, c11, cStride, h, 1);
+    }
+
+    /*
+        out = x + sign * y, out is a compact h x h block
+     */
+    private static void combine(int[] x, int xOffset, int xStride, int[] y, int yOffset, int yStride,
+                                int sign, int[] out, int outOffset, int h) {
+        for (int i = 0; i < h; i++) {
+            final int xRow = xOffset + i * xStride;
+            final int yRow = yOffset + i * yStride;
+            final int outRow = outOffset + i * h;
+            for (int j = 0; j < h; j++) {
+                out[outRow + j] = x[xRow + j] + sign * y[yRow + j];
+            }
+        }
+    }
+
+    /*
+        c += sign * p, or c = p when sign is 0, p is a compact h x h block
+     */
+    private static void accumulate(int[] p, int pOffset, int[] c, int cOffset, int cStride, int h, int sign) {
+        for (int i = 0; i < h; i++) {
+            final int pRow = pOffset + i * h;
+            final int cRow = cOffset + i * cStride;
+            if (sign == 0) {
+                System.arraycopy(p, pRow, c, cRow, h);
+            } else {
+                for (int j = 0; j < h; j++) {
+                    c[cRow + j] += sign * p[pRow + j];
+                }
+            }
+        }
+    }
+
+    private static void clear(int[] c, int cOffset, int cStride, int size) {
+        for (int i = 0; i < size; i++) {
+            final int cRow = cOffset + i * cStride;
+            Arrays.fill(c, cRow, cRow + size, 0);
+        }
+    }
+
+    private static int[] pad(Matrix matrix, int size) {
+        final int n = matrix.getRowLength();
+        final int[] padded = new int[size * size];
+        for (int x = 0; x < n; x++) {
+            System.arraycopy(matrix.data(), matrix.offset() + x * matrix.stride(), padded, x * size, n);
+        }
+        return padded;
+    }
+
+    private static int depth(int n, int cutover) {
+        int depth = 0;
+        while (ceilDiv(n, 1 << depth) > cutover)
+            depth++;
+        return depth;
+    }
+
+    private static int ceilDiv(int x, int y) {
+        return x / y + (x % y == 0 ? 0 : 1);
+    }
+}
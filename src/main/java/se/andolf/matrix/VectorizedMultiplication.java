@@ -0,0 +1,34 @@
+package se.andolf.matrix;
+
+/*
+    Entry point for the SIMD matrix product.
+
+    This is the Java 11 version of the class which has no vector support
+    and always hands the work to the scalar blocked kernel. When the jar is
+    built with the simd profile, a Java 17 version of this class that uses
+    the incubating Vector API is placed under META-INF/versions/17 and is
+    picked up instead on newer runtimes.
+ */
+final class VectorizedMultiplication {
+
+    private VectorizedMultiplication() {
+    }
+
+    /*
+        Whether the SIMD kernel is in use, always false in this version
+     */
+    static boolean isAvailable() {
+        return false;
+    }
+
+    static void multiply(Matrix a, Matrix b, Matrix c) {
+        BlockedMultiplication.multiply(a, b, c);
+    }
+
+    static void multiply(int[] a, int aOffset, int aStride,
+                         int[] b, int bOffset, int bStride,
+                         int[] c, int cOffset, int cStride,
+                         int n, int m, int p, BlockedMultiplication.IntScratch scratch) {
+        BlockedMultiplication.multiply(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride, n, m, p, scratch);
+    }
+}
@@ -0,0 +1,62 @@
+package se.andolf.tutorials.algorithms;
+
+import java.util.Arrays;
+
+/*
+    A growable list of ints backed by a plain int array, for results whose
+    size isn't known up front, without boxing every element like a
+    List<Integer> would. Grows by doubling, so adding is amortized O(1).
+ */
+public final class IntList {
+
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int capacity) {
+        values = new int[Math.max(1, capacity)];
+    }
+
+    public void add(int value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    public void addAll(IntList list) {
+        if (size + list.size > values.length)
+            values = Arrays.copyOf(values, Math.max(size + list.size, size * 2));
+        System.arraycopy(list.values, 0, values, size, list.size);
+        size += list.size;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,64 @@
+package se.andolf.tutorials.algorithms;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+    A read only view of a file of raw ints, memory mapped so that nothing
+    is read until it is touched and the operating system pages it in and
+    out as needed.
+
+    A single mapping can't be larger than 2 GiB, so the file is mapped in
+    segments of 2^28 ints (1 GiB) and a position is split into a segment
+    and an offset with a shift and a mask. Positions are longs, files can
+    hold more ints than an array can.
+ */
+public final class MappedIntArray {
+
+    private static final int SEGMENT_SHIFT = 28;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final IntBuffer[] segments;
+    private final long length;
+
+    private MappedIntArray(IntBuffer[] segments, long length) {
+        this.segments = segments;
+        this.length = length;
+    }
+
+    /**
+     * Maps a file of raw ints. Trailing bytes that don't make up a whole int
+     * are ignored.
+     *
+     * @param file the file to map
+     * @param order byte order the ints were written in
+     */
+    public static MappedIntArray map(Path file, ByteOrder order) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long length = channel.size() / Integer.BYTES;
+            final var segments = new IntBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (var s = 0; s < segments.length; s++) {
+                final long first = (long) s << SEGMENT_SHIFT;
+                final long ints = Math.min(SEGMENT_MASK + 1, length - first);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, first * Integer.BYTES, ints * Integer.BYTES)
+                        .order(order)
+                        .asIntBuffer();
+            }
+            return new MappedIntArray(segments, length);
+        }
+    }
+
+    public int get(long index) {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+    }
+
+    public long length() {
+        return length;
+    }
+}
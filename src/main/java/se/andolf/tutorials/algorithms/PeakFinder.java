@@ -1,6 +1,8 @@
 package se.andolf.tutorials.algorithms;
 
-import java.util.Arrays;
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /*
     - Peak finder
@@ -22,6 +24,8 @@ import java.util.Arrays;
  */
 public class PeakFinder {
 
+    static final int CHUNK_SIZE = 1 << 16;
+    static final int BATCH_SIZE = 1 << 10;
 
     /*
         Straight forward solution, we look at each element and then decide if it is a peak
@@ -55,31 +59,434 @@ public class PeakFinder {
         else n/2 is a peak
      */
     public static int divideAndConquer(int[] numbers) {
-        return divideAndConquer(numbers, 0, numbers.length-1);
+        final var index = peakIndex(numbers);
+        return index < 0 ? -1 : numbers[index];
     }
 
-    private static int divideAndConquer(int[] numbers, int start, int end) {
-        if (numbers.length == 0)
+    /*
+        Same as divideAndConquer but returns the position of the peak, so an
+        empty array (-1) can't be mistaken for a peak with the value -1.
+     */
+    public static int peakIndex(int[] numbers) {
+        return peakIndex(numbers, 0, numbers.length);
+    }
+
+    /*
+        Divide and Conquer on numbers[from..to), written as a loop instead of
+        recursion, each step only moves one of the ends. The returned
+        position is relative to from.
+     */
+    static int peakIndex(int[] numbers, int from, int to) {
+        if (from >= to)
             return -1;
-        else if(end - start == 0)
-            return numbers[start];
+        var start = from;
+        var end = to - 1;
+        while (start != end) {
+            final var middle = (start + end) >>> 1;
+            if (numbers[middle] < numbers[middle + 1]) {
+                start = middle + 1;
+            } else if (middle != from && numbers[middle] < numbers[middle - 1]) {
+                end = middle - 1;
+            } else {
+                return middle - from;
+            }
+        }
+        return start - from;
+    }
+
+    /*
+        Batch of peak queries
 
-        var middle = (start+end)/2;
-        if(numbers[middle] < numbers[middle+1]) {
-            return divideAndConquer(numbers, middle+1, end);
-        } else if(middle != 0 && numbers[middle] < numbers[middle-1]){
-            return divideAndConquer(numbers, start, middle-1);
-        } else {
-            return numbers[middle];
+        many arrays laid out after each other in one flat buffer, array i is
+        numbers[offsets[i]..offsets[i + 1]), so offsets holds one more entry
+        than there are arrays. The position of a peak in every array,
+        relative to the start of that array, is written to result[i], or -1
+        for an empty array.
+     */
+    public static void peakIndices(int[] numbers, int[] offsets, int[] result) {
+        checkBatch(numbers, offsets, result);
+        peakIndices(numbers, offsets, result, 0, offsets.length - 1);
+    }
+
+    /*
+        Same as above with the queries split over the pool in batches.
+     */
+    public static void peakIndices(int[] numbers, int[] offsets, int[] result, ForkJoinPool pool) {
+        checkBatch(numbers, offsets, result);
+        final var queries = offsets.length - 1;
+        if (queries <= BATCH_SIZE)
+            peakIndices(numbers, offsets, result, 0, queries);
+        else
+            pool.invoke(new PeakIndicesTask(numbers, offsets, result, 0, queries));
+    }
+
+    /*
+        Same as above for separate arrays, result[i] is the position of a
+        peak in arrays[i].
+     */
+    public static void peakIndices(int[][] arrays, int[] result) {
+        if (result.length < arrays.length)
+            throw new IllegalArgumentException("Result has room for " + result.length
+                    + " positions, needs " + arrays.length);
+        for (var i = 0; i < arrays.length; i++) {
+            result[i] = peakIndex(arrays[i], 0, arrays[i].length);
+        }
+    }
+
+    private static void peakIndices(int[] numbers, int[] offsets, int[] result, int from, int to) {
+        for (var i = from; i < to; i++) {
+            result[i] = peakIndex(numbers, offsets[i], offsets[i + 1]);
+        }
+    }
+
+    private static void checkBatch(int[] numbers, int[] offsets, int[] result) {
+        if (offsets.length == 0 || offsets[0] < 0 || offsets[offsets.length - 1] > numbers.length)
+            throw new IllegalArgumentException("Offsets must start at 0 or later and end within the numbers");
+        for (var i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1])
+                throw new IllegalArgumentException("Offsets must be ascending, offset " + i);
         }
+        if (result.length < offsets.length - 1)
+            throw new IllegalArgumentException("Result has room for " + result.length
+                    + " positions, needs " + (offsets.length - 1));
     }
 
+    private static final class PeakIndicesTask extends RecursiveAction {
+
+        private final int[] numbers;
+        private final int[] offsets;
+        private final int[] result;
+        private final int from;
+        private final int to;
+
+        PeakIndicesTask(int[] numbers, int[] offsets, int[] result, int from, int to) {
+            this.numbers = numbers;
+            this.offsets = offsets;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                peakIndices(numbers, offsets, result, from, to);
+                return;
+            }
+            final var middle = (from + to) >>> 1;
+            invokeAll(new PeakIndicesTask(numbers, offsets, result, from, middle),
+                    new PeakIndicesTask(numbers, offsets, result, middle, to));
+        }
+    }
+
+    /*
+        Single pass over the array, see Reductions
+
+        solution: Θ(n) without copying or recursion
+     */
     public static int maximum(int[] numbers){
-        if(numbers.length == 0)
+        return Reductions.maximum(numbers);
+    }
+
+    /*
+        All peaks
+
+        look at each element like the straight forward solution does, but
+        instead of stopping at the first peak collect the position of every
+        element that is >= both of its neighbours. On a plateau that means
+        every position of the plateau is a peak, as long as the plateau is
+        not lower than what is on either side of it.
+
+        solution: Θ(n)
+     */
+    public static IntList findAllPeaks(int[] numbers) {
+        final var peaks = new IntList();
+        findAllPeaks(numbers, 0, numbers.length, peaks);
+        return peaks;
+    }
+
+    /*
+        All peaks, in parallel
+
+        cut the array in chunks and scan them on the pool, each element only
+        needs its two neighbours so a chunk just reads one element past
+        either end of it. The chunks are collected in order and copied into
+        one buffer at the end.
+     */
+    public static IntList findAllPeaks(int[] numbers, ForkJoinPool pool) {
+        if (numbers.length <= CHUNK_SIZE)
+            return findAllPeaks(numbers);
+        final var chunks = new IntList[chunkCount(numbers.length)];
+        pool.invoke(new AllPeaksTask(numbers, chunks, 0, chunks.length));
+        var total = 0;
+        for (final var chunk : chunks) {
+            total += chunk.size();
+        }
+        final var peaks = new IntList(total);
+        for (final var chunk : chunks) {
+            peaks.addAll(chunk);
+        }
+        return peaks;
+    }
+
+    /*
+        Rounds up without adding CHUNK_SIZE - 1 first, which overflows for
+        arrays close to Integer.MAX_VALUE long
+     */
+    static int chunkCount(int length) {
+        return length == 0 ? 0 : (length - 1) / CHUNK_SIZE + 1;
+    }
+
+    static void findAllPeaks(int[] numbers, int from, int to, IntList peaks) {
+        final var last = numbers.length - 1;
+        for (var i = from; i < to; i++) {
+            final var value = numbers[i];
+            if ((i == 0 || value >= numbers[i - 1]) && (i == last || value >= numbers[i + 1]))
+                peaks.add(i);
+        }
+    }
+
+    private static final class AllPeaksTask extends RecursiveAction {
+
+        private final int[] numbers;
+        private final IntList[] chunks;
+        private final int from;
+        private final int to;
+
+        AllPeaksTask(int[] numbers, IntList[] chunks, int from, int to) {
+            this.numbers = numbers;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                final var peaks = new IntList();
+                final var start = from * CHUNK_SIZE;
+                findAllPeaks(numbers, start, start + Math.min(CHUNK_SIZE, numbers.length - start), peaks);
+                chunks[from] = peaks;
+                return;
+            }
+            final var middle = (from + to) >>> 1;
+            invokeAll(new AllPeaksTask(numbers, chunks, from, middle), new AllPeaksTask(numbers, chunks, middle, to));
+        }
+    }
+
+    /*
+        Peak finding on buffers and mapped files
+
+        the same algorithms as above, reading numbers with absolute gets so
+        a memory mapped file never has to be loaded into an array. The
+        linear scans read the file front to back, which the operating system
+        turns into sequential read ahead, while divide and conquer only
+        touches the O(log n) pages its probes land on.
+
+        For an IntBuffer the numbers are the ones between its position and
+        limit, and positions are relative to its position.
+     */
+    public static int straightForward(IntBuffer numbers) {
+        final var start = numbers.position();
+        final var last = numbers.limit() - 1;
+        for (var i = start; i <= last; i++) {
+            final var value = numbers.get(i);
+            if ((i == start || value >= numbers.get(i - 1)) && (i == last || value >= numbers.get(i + 1)))
+                return value;
+        }
+        return -1;
+    }
+
+    public static int peakIndex(IntBuffer numbers) {
+        final var from = numbers.position();
+        if (from >= numbers.limit())
+            return -1;
+        var start = from;
+        var end = numbers.limit() - 1;
+        while (start != end) {
+            final var middle = (start + end) >>> 1;
+            if (numbers.get(middle) < numbers.get(middle + 1)) {
+                start = middle + 1;
+            } else if (middle != from && numbers.get(middle) < numbers.get(middle - 1)) {
+                end = middle - 1;
+            } else {
+                return middle - from;
+            }
+        }
+        return start - from;
+    }
+
+    public static int divideAndConquer(IntBuffer numbers) {
+        final var index = peakIndex(numbers);
+        return index < 0 ? -1 : numbers.get(numbers.position() + index);
+    }
+
+    public static IntList findAllPeaks(IntBuffer numbers) {
+        final var peaks = new IntList();
+        final var start = numbers.position();
+        final var last = numbers.limit() - 1;
+        for (var i = start; i <= last; i++) {
+            final var value = numbers.get(i);
+            if ((i == start || value >= numbers.get(i - 1)) && (i == last || value >= numbers.get(i + 1)))
+                peaks.add(i - start);
+        }
+        return peaks;
+    }
+
+    public static int straightForward(MappedIntArray numbers) {
+        final var last = numbers.length() - 1;
+        for (var i = 0L; i <= last; i++) {
+            final var value = numbers.get(i);
+            if ((i == 0 || value >= numbers.get(i - 1)) && (i == last || value >= numbers.get(i + 1)))
+                return value;
+        }
+        return -1;
+    }
+
+    public static long peakIndex(MappedIntArray numbers) {
+        if (numbers.length() == 0)
             return -1;
-        else if(numbers.length == 1)
-            return numbers[0];
-        return Math.max(numbers[0], maximum(Arrays.copyOfRange(numbers, 1, numbers.length)));
+        var start = 0L;
+        var end = numbers.length() - 1;
+        while (start != end) {
+            final var middle = (start + end) >>> 1;
+            if (numbers.get(middle) < numbers.get(middle + 1)) {
+                start = middle + 1;
+            } else if (middle != 0 && numbers.get(middle) < numbers.get(middle - 1)) {
+                end = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return start;
+    }
+
+    public static int divideAndConquer(MappedIntArray numbers) {
+        final var index = peakIndex(numbers);
+        return index < 0 ? -1 : numbers.get(index);
+    }
+
+    /*
+        A mapped file can hold more peaks than fit in an IntList, and more
+        positions than fit in an int, so every peak is handed to the
+        listener as it is found instead.
+     */
+    public static void findAllPeaks(MappedIntArray numbers, PeakListener listener) {
+        final var detector = new StreamingPeakDetector(listener);
+        for (var i = 0L; i < numbers.length(); i++) {
+            detector.accept(numbers.get(i));
+        }
+        detector.complete();
+    }
+
+    /*
+        Primitive versions
+
+        the same straight forward, divide and conquer, maximum and all
+        peaks algorithms as for int, for long, short and double so nothing
+        is boxed. The long and short versions are generated from one
+        template, see LongPeakFinder and ShortPeakFinder.
+     */
+    public static long straightForward(long[] numbers) {
+        return LongPeakFinder.straightForward(numbers);
+    }
+
+    public static long divideAndConquer(long[] numbers) {
+        return LongPeakFinder.divideAndConquer(numbers);
+    }
+
+    public static long maximum(long[] numbers) {
+        return LongPeakFinder.maximum(numbers);
+    }
+
+    public static IntList findAllPeaks(long[] numbers) {
+        return LongPeakFinder.findAllPeaks(numbers);
+    }
+
+    public static short straightForward(short[] numbers) {
+        return ShortPeakFinder.straightForward(numbers);
+    }
+
+    public static short divideAndConquer(short[] numbers) {
+        return ShortPeakFinder.divideAndConquer(numbers);
+    }
+
+    public static short maximum(short[] numbers) {
+        return ShortPeakFinder.maximum(numbers);
+    }
+
+    public static IntList findAllPeaks(short[] numbers) {
+        return ShortPeakFinder.findAllPeaks(numbers);
+    }
+
+    /*
+        For doubles NaN is not a number, so it is never a peak and it never
+        keeps a neighbour from being one, as if it was lower than any number.
+        The methods that return a value return NaN when there is no peak,
+        which is the case for an empty array or one with only NaN in it.
+     */
+    public static double straightForward(double[] numbers) {
+        final var last = numbers.length - 1;
+        for (var i = 0; i <= last; i++) {
+            if (isPeak(numbers, i, last))
+                return numbers[i];
+        }
+        return Double.NaN;
+    }
+
+    /*
+        Divide and conquer treats NaN as lower than any number too, but a
+        run of NaN is flat and the search can stop in the middle of it. When
+        it does we fall back to the straight forward scan, so a real peak is
+        still found if there is one.
+     */
+    public static double divideAndConquer(double[] numbers) {
+        if (numbers.length == 0)
+            return Double.NaN;
+        var start = 0;
+        var end = numbers.length - 1;
+        while (start != end) {
+            final var middle = (start + end) >>> 1;
+            if (isLower(numbers[middle], numbers[middle + 1])) {
+                start = middle + 1;
+            } else if (middle != 0 && isLower(numbers[middle], numbers[middle - 1])) {
+                end = middle - 1;
+            } else {
+                start = middle;
+                break;
+            }
+        }
+        return Double.isNaN(numbers[start]) ? straightForward(numbers) : numbers[start];
+    }
+
+    public static double maximum(double[] numbers) {
+        var maximum = Double.NaN;
+        for (final var value : numbers) {
+            if (value > maximum || (Double.isNaN(maximum) && !Double.isNaN(value)))
+                maximum = value;
+        }
+        return maximum;
+    }
+
+    public static IntList findAllPeaks(double[] numbers) {
+        final var peaks = new IntList();
+        final var last = numbers.length - 1;
+        for (var i = 0; i <= last; i++) {
+            if (isPeak(numbers, i, last))
+                peaks.add(i);
+        }
+        return peaks;
+    }
+
+    private static boolean isPeak(double[] numbers, int i, int last) {
+        final var value = numbers[i];
+        return !Double.isNaN(value)
+                && (i == 0 || !isLower(value, numbers[i - 1]))
+                && (i == last || !isLower(value, numbers[i + 1]));
+    }
+
+    private static boolean isLower(double value, double neighbour) {
+        return Double.isNaN(value) ? !Double.isNaN(neighbour) : value < neighbour;
     }
 
     public static boolean isEven(int number) {
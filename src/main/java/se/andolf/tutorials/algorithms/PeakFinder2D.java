@@ -0,0 +1,138 @@
+package se.andolf.tutorials.algorithms;
+
+import se.andolf.matrix.Matrix;
+
+/*
+    - Peak finder
+    - Two dimensional version
+
+    given a matrix of numbers
+
+        a b c
+        d e f
+        g h i
+
+    position e is a peak if and only if
+    e >= b and e >= d and e >= f and e >= h
+
+    neighbours outside of the matrix are ignored, just like the edges in
+    the one dimensional version
+
+    ----------------------------------------------------------------------
+
+    Problem: Find A peak, (if it exists)! The answer is the position of
+    the peak as { row, column }, or { -1, -1 } for an empty matrix.
+
+    All cells are read in place through Matrix.get, no rows or columns
+    are copied.
+ */
+public class PeakFinder2D {
+
+    private static final int[] NOT_FOUND = { -1, -1 };
+
+    /*
+        Divide and Conquer on columns
+
+        pick the middle column j and find the maximum of that column at row i
+        if a[i][j-1] > a[i][j] then only look at the columns left of j
+        else if a[i][j+1] > a[i][j] then only look at the columns right of j
+        else (i, j) is a peak, it is the largest of its column and no smaller
+        than its left and right neighbours
+
+        If we go left, the left half must contain a peak: climbing from
+        a[i][j-1] can never cross back into column j since everything there
+        is smaller than a[i][j-1].
+
+        solution: Θ(n log m) for n rows and m columns
+     */
+    public static int[] divideAndConquer(Matrix matrix) {
+        if (matrix.getRowLength() == 0 || matrix.getColLength() == 0)
+            return NOT_FOUND.clone();
+        return divideAndConquer(matrix, 0, matrix.getColLength() - 1);
+    }
+
+    private static int[] divideAndConquer(Matrix matrix, int start, int end) {
+        while (true) {
+            final var middle = (start + end) / 2;
+            final var row = columnMaximum(matrix, middle);
+            final var value = matrix.get(row, middle);
+            if (middle > start && matrix.get(row, middle - 1) > value) {
+                end = middle - 1;
+            } else if (middle < end && matrix.get(row, middle + 1) > value) {
+                start = middle + 1;
+            } else {
+                return new int[] { row, middle };
+            }
+        }
+    }
+
+    /*
+        Greedy ascent
+
+        start in the middle and keep stepping to the largest neighbour as
+        long as it is larger than where we are, when no neighbour is larger
+        we are on a peak
+
+        worst case the path snakes through the whole matrix, Θ(n * m), so the
+        number of steps is bounded. When the budget runs out we continue with
+        divide and conquer on the columns instead, which keeps the worst
+        case at Θ(maxSteps + n log m).
+     */
+    public static int[] greedyAscent(Matrix matrix, int maxSteps) {
+        final var rows = matrix.getRowLength();
+        final var cols = matrix.getColLength();
+        if (rows == 0 || cols == 0)
+            return NOT_FOUND.clone();
+
+        var row = rows / 2;
+        var col = cols / 2;
+        for (var step = 0; step < maxSteps; step++) {
+            var bestRow = row;
+            var bestCol = col;
+            var best = matrix.get(row, col);
+            if (row > 0 && matrix.get(row - 1, col) > best) {
+                bestRow = row - 1;
+                best = matrix.get(bestRow, col);
+            }
+            if (row < rows - 1 && matrix.get(row + 1, col) > best) {
+                bestRow = row + 1;
+                best = matrix.get(bestRow, col);
+            }
+            if (col > 0 && matrix.get(row, col - 1) > best) {
+                bestRow = row;
+                bestCol = col - 1;
+                best = matrix.get(row, bestCol);
+            }
+            if (col < cols - 1 && matrix.get(row, col + 1) > best) {
+                bestRow = row;
+                bestCol = col + 1;
+            }
+            if (bestRow == row && bestCol == col)
+                return new int[] { row, col };
+            row = bestRow;
+            col = bestCol;
+        }
+        return divideAndConquer(matrix);
+    }
+
+    public static boolean isPeak(Matrix matrix, int row, int col) {
+        final var value = matrix.get(row, col);
+        return (row == 0 || value >= matrix.get(row - 1, col))
+                && (row == matrix.getRowLength() - 1 || value >= matrix.get(row + 1, col))
+                && (col == 0 || value >= matrix.get(row, col - 1))
+                && (col == matrix.getColLength() - 1 || value >= matrix.get(row, col + 1));
+    }
+
+    private static int columnMaximum(Matrix matrix, int col) {
+        var row = 0;
+        var maximum = matrix.get(0, col);
+        for (var i = 1; i < matrix.getRowLength(); i++) {
+            final var value = matrix.get(i, col);
+            if (value > maximum) {
+                maximum = value;
+                row = i;
+            }
+        }
+        return row;
+    }
+}
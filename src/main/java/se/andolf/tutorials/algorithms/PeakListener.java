@@ -0,0 +1,14 @@
+package se.andolf.tutorials.algorithms;
+
+@FunctionalInterface
+public interface PeakListener {
+
+    /**
+     * Called for every confirmed peak.
+     *
+     * @param position the position of the peak in the input, counting from 0
+     * @param value the value of the peak
+     */
+    void onPeak(long position, int value);
+
+}
@@ -0,0 +1,221 @@
+package se.andolf.tutorials.algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+    - Reductions over int arrays
+
+    Every reduction is built on one kernel, a single pass over a range of
+    the array that keeps track of the position of the best value so far.
+    Maximum and minimum read the value at that position, argMax and argMin
+    return the position itself. Ties go to the leftmost position.
+
+    Θ(n) time, no allocation and no recursion for the sequential versions.
+
+    The parallel versions split the array in halves on a fork join pool
+    until the pieces are smaller than the threshold, reduce every piece
+    with the same kernel and combine the results pairwise.
+
+    Empty arrays give -1, just like PeakFinder does.
+ */
+public class Reductions {
+
+    static final int THRESHOLD = 1 << 16;
+
+    public static int maximum(int[] numbers) {
+        final var index = argMax(numbers);
+        return index < 0 ? -1 : numbers[index];
+    }
+
+    public static int minimum(int[] numbers) {
+        final var index = argMin(numbers);
+        return index < 0 ? -1 : numbers[index];
+    }
+
+    public static int argMax(int[] numbers) {
+        return best(numbers, 0, numbers.length, true);
+    }
+
+    public static int argMin(int[] numbers) {
+        return best(numbers, 0, numbers.length, false);
+    }
+
+    public static int maximum(int[] numbers, ForkJoinPool pool) {
+        final var index = argMax(numbers, pool);
+        return index < 0 ? -1 : numbers[index];
+    }
+
+    public static int minimum(int[] numbers, ForkJoinPool pool) {
+        final var index = argMin(numbers, pool);
+        return index < 0 ? -1 : numbers[index];
+    }
+
+    public static int argMax(int[] numbers, ForkJoinPool pool) {
+        if (numbers.length <= THRESHOLD)
+            return argMax(numbers);
+        return pool.invoke(new BestTask(numbers, 0, numbers.length, true, THRESHOLD));
+    }
+
+    public static int argMin(int[] numbers, ForkJoinPool pool) {
+        if (numbers.length <= THRESHOLD)
+            return argMin(numbers);
+        return pool.invoke(new BestTask(numbers, 0, numbers.length, false, THRESHOLD));
+    }
+
+    /*
+        Top k
+
+        keep the k largest values seen so far in a min heap, the smallest of
+        them on top, and only touch the heap when a number beats the top
+
+        solution: Θ(n log k), allocating only the k sized result
+
+        The result is sorted in descending order and holds min(k, n) values.
+     */
+    public static int[] topK(int[] numbers, int k) {
+        return topK(numbers, 0, numbers.length, k);
+    }
+
+    public static int[] topK(int[] numbers, int k, ForkJoinPool pool) {
+        if (numbers.length <= THRESHOLD)
+            return topK(numbers, k);
+        return pool.invoke(new TopKTask(numbers, 0, numbers.length, k, THRESHOLD));
+    }
+
+    static int best(int[] numbers, int from, int to, boolean maximum) {
+        if (from >= to)
+            return -1;
+        var best = from;
+        var value = numbers[from];
+        for (var i = from + 1; i < to; i++) {
+            final var current = numbers[i];
+            if (maximum ? current > value : current < value) {
+                value = current;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    static int[] topK(int[] numbers, int from, int to, int k) {
+        if (k < 0)
+            throw new IllegalArgumentException("k must not be negative, was " + k);
+        final var heap = new int[Math.min(k, to - from)];
+        var size = 0;
+        for (var i = from; i < to; i++) {
+            final var value = numbers[i];
+            if (size < heap.length) {
+                heap[size] = value;
+                siftUp(heap, size++);
+            } else if (size > 0 && value > heap[0]) {
+                heap[0] = value;
+                siftDown(heap, 0, size);
+            }
+        }
+        for (var end = size - 1; end > 0; end--) {
+            final var top = heap[0];
+            heap[0] = heap[end];
+            heap[end] = top;
+            siftDown(heap, 0, end);
+        }
+        return heap;
+    }
+
+    private static void siftUp(int[] heap, int i) {
+        while (i > 0) {
+            final var parent = (i - 1) / 2;
+            if (heap[parent] <= heap[i])
+                return;
+            swap(heap, parent, i);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int i, int size) {
+        while (true) {
+            final var left = 2 * i + 1;
+            if (left >= size)
+                return;
+            final var right = left + 1;
+            final var smallest = right < size && heap[right] < heap[left] ? right : left;
+            if (heap[i] <= heap[smallest])
+                return;
+            swap(heap, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        final var tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+
+    private static final class BestTask extends RecursiveTask<Integer> {
+
+        private final int[] numbers;
+        private final int from;
+        private final int to;
+        private final boolean maximum;
+        private final int threshold;
+
+        BestTask(int[] numbers, int from, int to, boolean maximum, int threshold) {
+            this.numbers = numbers;
+            this.from = from;
+            this.to = to;
+            this.maximum = maximum;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= threshold)
+                return best(numbers, from, to, maximum);
+            final var middle = (from + to) >>> 1;
+            final var right = new BestTask(numbers, middle, to, maximum, threshold);
+            right.fork();
+            final int leftBest = new BestTask(numbers, from, middle, maximum, threshold).compute();
+            final int rightBest = right.join();
+            final var leftValue = numbers[leftBest];
+            final var rightValue = numbers[rightBest];
+            return (maximum ? rightValue > leftValue : rightValue < leftValue) ? rightBest : leftBest;
+        }
+    }
+
+    private static final class TopKTask extends RecursiveTask<int[]> {
+
+        private final int[] numbers;
+        private final int from;
+        private final int to;
+        private final int k;
+        private final int threshold;
+
+        TopKTask(int[] numbers, int from, int to, int k, int threshold) {
+            this.numbers = numbers;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= threshold)
+                return topK(numbers, from, to, k);
+            final var middle = (from + to) >>> 1;
+            final var right = new TopKTask(numbers, middle, to, k, threshold);
+            right.fork();
+            final var left = new TopKTask(numbers, from, middle, k, threshold).compute();
+            return merge(left, right.join(), k);
+        }
+
+        private static int[] merge(int[] left, int[] right, int k) {
+            final var merged = new int[Math.min(k, left.length + right.length)];
+            for (int m = 0, i = 0, j = 0; m < merged.length; m++) {
+                merged[m] = j >= right.length || (i < left.length && left[i] >= right[j]) ? left[i++] : right[j++];
+            }
+            return merged;
+        }
+    }
+}
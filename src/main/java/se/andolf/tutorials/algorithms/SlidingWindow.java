@@ -0,0 +1,132 @@
+package se.andolf.tutorials.algorithms;
+
+import java.util.function.IntConsumer;
+
+/*
+    - Sliding window maximum and peaks
+
+    Keeps track of the last w numbers of a series as new ones are pushed in.
+
+    Maximum: a monotonic deque of positions whose values never increase
+    from front to back. A new number first removes every position at the
+    back that is smaller than it, since those can never be the maximum
+    again while the new number is in the window, and the front is dropped
+    once it slides out of the window. The front is then
+    always the position of the maximum, the oldest one on ties.
+
+    Peaks: the same definition as PeakFinder, over the whole series. A peak
+    is confirmed when the number after it arrives, it is reported to the
+    listener and its position is queued so the number of peaks inside the
+    window can be told at any time.
+
+    Every number enters and leaves each queue at most once, so pushing is
+    amortized O(1). All queues are rings of primitives sized by the window,
+    nothing is allocated after construction.
+ */
+public class SlidingWindow implements IntConsumer {
+
+    private final int size;
+    private final int[] values;
+    private final long[] deque;
+    private final long[] peaks;
+    private final PeakListener listener;
+
+    private long count;
+    private int dequeHead;
+    private int dequeSize;
+    private int peaksHead;
+    private int peaksSize;
+    private boolean previousRising;
+
+    public SlidingWindow(int size) {
+        this(size, (position, value) -> { });
+    }
+
+    public SlidingWindow(int size, PeakListener listener) {
+        if (size < 1)
+            throw new IllegalArgumentException("Window size must be positive, was " + size);
+        this.size = size;
+        this.values = new int[size];
+        this.deque = new long[size];
+        this.peaks = new long[size];
+        this.listener = listener;
+    }
+
+    @Override
+    public void accept(int value) {
+        final var oldest = count - size + 1;
+
+        if (count > 0) {
+            final var previous = valueAt(count - 1);
+            if (previousRising && previous >= value)
+                confirmPeak(count - 1, previous);
+            previousRising = value >= previous;
+        } else {
+            previousRising = true;
+        }
+
+        if (dequeSize > 0 && deque[dequeHead] < oldest) {
+            dequeHead = (dequeHead + 1) % size;
+            dequeSize--;
+        }
+        while (dequeSize > 0 && valueAt(deque[(dequeHead + dequeSize - 1) % size]) < value) {
+            dequeSize--;
+        }
+        values[(int) (count % size)] = value;
+        deque[(dequeHead + dequeSize) % size] = count;
+        dequeSize++;
+
+        while (peaksSize > 0 && peaks[peaksHead] < oldest) {
+            peaksHead = (peaksHead + 1) % size;
+            peaksSize--;
+        }
+        count++;
+    }
+
+    /**
+     * @return the largest number in the window, or -1 if nothing has been pushed
+     */
+    public int max() {
+        return dequeSize == 0 ? -1 : valueAt(deque[dequeHead]);
+    }
+
+    /**
+     * @return the position in the series of the largest number in the window,
+     * or -1 if nothing has been pushed
+     */
+    public long maxPosition() {
+        return dequeSize == 0 ? -1 : deque[dequeHead];
+    }
+
+    /**
+     * @return the number of confirmed peaks inside the window, the newest
+     * number is never a confirmed peak since nothing has come after it yet
+     */
+    public int peakCount() {
+        return peaksSize;
+    }
+
+    /**
+     * @return how many numbers are in the window
+     */
+    public int size() {
+        return (int) Math.min(count, size);
+    }
+
+    /**
+     * @return how many numbers have been pushed in total
+     */
+    public long count() {
+        return count;
+    }
+
+    private void confirmPeak(long position, int value) {
+        peaks[(peaksHead + peaksSize) % size] = position;
+        peaksSize++;
+        listener.onPeak(position, value);
+    }
+
+    private int valueAt(long position) {
+        return values[(int) (position % size)];
+    }
+}
@@ -0,0 +1,66 @@
+package se.andolf.tutorials.algorithms;
+
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/*
+    - Peak finder
+    - Streaming version
+
+    Same definition of a peak as in PeakFinder, but for input that never
+    ends and therefore can't be put in an array. Numbers are pushed in one
+    at a time. A peak is confirmed once the number after it has arrived,
+    and is then reported to the listener. The last number has nothing
+    after it, so it is only confirmed when complete is called at the end
+    of the input.
+
+    The detector keeps only the previous number and whether it was no
+    smaller than the one before it. The state is O(1), and nothing is
+    allocated per number.
+ */
+public class StreamingPeakDetector implements IntConsumer {
+
+    private final PeakListener listener;
+
+    private long count;
+    private int previous;
+    private boolean previousRising;
+
+    public StreamingPeakDetector(PeakListener listener) {
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    /*
+        Pull version, runs the whole stream through a detector, which only
+        terminates for finite streams.
+     */
+    public static void detect(IntStream numbers, PeakListener listener) {
+        final var detector = new StreamingPeakDetector(listener);
+        numbers.sequential().forEach(detector);
+        detector.complete();
+    }
+
+    @Override
+    public void accept(int value) {
+        if (count > 0 && previousRising && previous >= value)
+            listener.onPeak(count - 1, previous);
+        previousRising = count == 0 || value >= previous;
+        previous = value;
+        count++;
+    }
+
+    /**
+     * Marks the end of the input, reporting the last number if it is a peak,
+     * and resets the detector so it can be used for new input.
+     */
+    public void complete() {
+        if (count > 0 && previousRising)
+            listener.onPeak(count - 1, previous);
+        count = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
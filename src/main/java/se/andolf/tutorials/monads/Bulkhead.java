@@ -0,0 +1,62 @@
+package se.andolf.tutorials.monads;
+
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Limits how many calls may run at the same time.
+ *
+ * A call that finds the bulkhead full is rejected at once with a
+ * RejectedExecutionException instead of waiting for a permit, so a slow
+ * dependency can't tie up more than its share of threads.
+ */
+public final class Bulkhead {
+
+    private final Semaphore permits;
+    private final ResilienceMetrics metrics = new ResilienceMetrics();
+
+    public Bulkhead(int maxConcurrentCalls) {
+        if (maxConcurrentCalls < 1)
+            throw new IllegalArgumentException("Max concurrent calls must be positive, was " + maxConcurrentCalls);
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    public <T> Try<T> call(Supplier<T> call) {
+        return Try.ofThrowable(decorate(call));
+    }
+
+    /**
+     * @return a supplier that runs the call if a permit is free, and
+     * otherwise throws a RejectedExecutionException
+     */
+    public <T> Supplier<T> decorate(Supplier<T> call) {
+        Objects.requireNonNull(call);
+        return () -> {
+            if (!permits.tryAcquire()) {
+                metrics.recordRejection();
+                throw new RejectedExecutionException("Bulkhead is full");
+            }
+            final long start = System.nanoTime();
+            try {
+                final T value = call.get();
+                metrics.recordSuccess(System.nanoTime() - start);
+                return value;
+            } catch (Throwable e) {
+                metrics.recordFailure(System.nanoTime() - start);
+                throw e;
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public ResilienceMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,169 @@
+package se.andolf.tutorials.monads;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Stops calling a dependency after it has failed a number of times in a row.
+ *
+ * While CLOSED every call is let through. When the number of consecutive
+ * failures reaches the threshold the circuit OPENs, and calls are rejected
+ * with a RejectedExecutionException without being run. Once the open
+ * duration has passed a single trial call is let through in HALF_OPEN,
+ * its success closes the circuit again and its failure opens it again.
+ * A trial that hasn't reported back within another open duration is given
+ * up on, and the next call is let through as a new trial, so a trial call
+ * that is lost can't keep the circuit half open for good.
+ *
+ * The state is an immutable snapshot swapped with compare and set, so no
+ * call ever blocks on the breaker. A success in a healthy closed circuit
+ * doesn't write anything.
+ *
+ * Every change of state starts a new generation, and a permission is only
+ * good for the generation it was granted in. The outcome of a slow call
+ * that was let through before the circuit opened is ignored, so it can't
+ * close or reopen the circuit in place of the trial call.
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Returned by tryAcquirePermission when the call may not be made.
+     */
+    public static final long NO_PERMISSION = -1;
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(State.CLOSED, 0, 0, 0));
+    private final ResilienceMetrics metrics = new ResilienceMetrics();
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier clock) {
+        if (failureThreshold < 1)
+            throw new IllegalArgumentException("Failure threshold must be positive, was " + failureThreshold);
+        /* With no open duration every call would find the trial given up on and become a trial itself */
+        if (openDuration.isNegative() || openDuration.isZero())
+            throw new IllegalArgumentException("Open duration must be positive, was " + openDuration);
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    public <T> Try<T> call(Supplier<T> call) {
+        return Try.ofThrowable(decorate(call));
+    }
+
+    /**
+     * @return a supplier that runs the call and records its outcome if the
+     * circuit lets it through, and otherwise throws a
+     * RejectedExecutionException
+     */
+    public <T> Supplier<T> decorate(Supplier<T> call) {
+        Objects.requireNonNull(call);
+        return () -> {
+            final long permission = tryAcquirePermission();
+            if (permission == NO_PERMISSION) {
+                metrics.recordRejection();
+                throw new RejectedExecutionException("Circuit breaker is open");
+            }
+            final long start = System.nanoTime();
+            final T value;
+            try {
+                value = call.get();
+            } catch (Throwable e) {
+                metrics.recordFailure(System.nanoTime() - start);
+                onFailure(permission);
+                throw e;
+            }
+            metrics.recordSuccess(System.nanoTime() - start);
+            onSuccess(permission);
+            return value;
+        };
+    }
+
+    /**
+     * Asks to make a call, a caller that is given permission must report
+     * the outcome with onSuccess or onFailure.
+     *
+     * @return the permission to pass on to onSuccess or onFailure, or
+     * NO_PERMISSION if the call may not be made
+     */
+    public long tryAcquirePermission() {
+        while (true) {
+            final Snapshot current = snapshot.get();
+            switch (current.state) {
+                case CLOSED:
+                    return current.generation;
+                default:
+                    /* Open for long enough, or the trial call has been given up on */
+                    final long now = clock.getAsLong();
+                    if (now - current.since < openNanos)
+                        return NO_PERMISSION;
+                    final Snapshot trial = new Snapshot(State.HALF_OPEN, current.generation + 1, 0, now);
+                    if (snapshot.compareAndSet(current, trial))
+                        return trial.generation;
+            }
+        }
+    }
+
+    public void onSuccess(long permission) {
+        while (true) {
+            final Snapshot current = snapshot.get();
+            /* Nothing to reset, or the call was let through in an earlier generation */
+            if (current.generation != permission || current.state == State.CLOSED && current.failures == 0)
+                return;
+            final long generation = current.state == State.CLOSED ? current.generation : current.generation + 1;
+            if (snapshot.compareAndSet(current, new Snapshot(State.CLOSED, generation, 0, 0)))
+                return;
+        }
+    }
+
+    public void onFailure(long permission) {
+        while (true) {
+            final Snapshot current = snapshot.get();
+            if (current.generation != permission)
+                return;
+            final Snapshot next;
+            if (current.state == State.CLOSED && current.failures + 1 < failureThreshold)
+                next = new Snapshot(State.CLOSED, current.generation, current.failures + 1, 0);
+            else
+                next = new Snapshot(State.OPEN, current.generation + 1, 0, clock.getAsLong());
+            if (snapshot.compareAndSet(current, next))
+                return;
+        }
+    }
+
+    public State getState() {
+        return snapshot.get().state;
+    }
+
+    public ResilienceMetrics getMetrics() {
+        return metrics;
+    }
+
+    private static final class Snapshot {
+        private final State state;
+        private final long generation;
+        private final int failures;
+        /* When the circuit was opened, or the trial call let through */
+        private final long since;
+
+        private Snapshot(State state, long generation, int failures, long since) {
+            this.state = state;
+            this.generation = generation;
+            this.failures = failures;
+            this.since = since;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package se.andolf.tutorials.monads;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A Try that records map, flatMap and filter steps instead of running them,
+ * and runs the whole chain in one loop when a terminal operation (get,
+ * orElse, toOptional or toTry) is called.
+ *
+ * No intermediate Success is created between steps, and one try/catch
+ * covers the whole chain. Once a step fails the remaining ones are skipped.
+ *
+ * Each step returns a new LazyTry, the receiver is never changed, so a
+ * LazyTry can be branched into several chains, also from several threads.
+ * The source is run at most once however many branches are evaluated and
+ * however many threads evaluate them, while steps shared by several
+ * branches are run once per branch. A LazyTry evaluated by several threads
+ * at the same time may run its own steps once per thread, they all see the
+ * same value of the source.
+ *
+ * Recording the steps costs an object per step, so a chain built anew for
+ * every value allocates more than an eager Try does. When the same steps
+ * are applied to many values, build them once with {@link #pipeline()}
+ * and apply the Pipeline to every value instead. It allocates nothing of
+ * its own per value, orElse not even the result.
+ *
+ * @param <T>
+ */
+public final class LazyTry<T> {
+
+    private static final byte MAP = 0;
+    private static final byte FLAT_MAP = 1;
+    private static final byte FILTER = 2;
+
+    private final Source source;
+    private final Steps steps;
+    private final int length;
+
+    private volatile Try<T> result;
+
+    private LazyTry(Source source, Steps steps, int length) {
+        this.source = source;
+        this.steps = steps;
+        this.length = length;
+    }
+
+    public static <U> LazyTry<U> ofThrowable(Supplier<U> f) {
+        Objects.requireNonNull(f);
+        return new LazyTry<>(new Source(f), Steps.EMPTY, 0);
+    }
+
+    /**
+     * @return an empty pipeline, steps added to it can be applied to any
+     * number of values
+     */
+    public static <U> Pipeline<U, U> pipeline() {
+        return new Pipeline<>(Steps.EMPTY, 0);
+    }
+
+    public <U> LazyTry<U> map(Function<? super T, ? extends U> f) {
+        return new LazyTry<>(source, steps.append(length, MAP, f), length + 1);
+    }
+
+    public <U> LazyTry<U> flatMap(Function<? super T, Try<U>> f) {
+        return new LazyTry<>(source, steps.append(length, FLAT_MAP, f), length + 1);
+    }
+
+    public LazyTry<T> filter(Predicate<T> pred) {
+        return new LazyTry<>(source, steps.append(length, FILTER, pred), length + 1);
+    }
+
+    /**
+     * Gets the value T on Success or throws the cause of the failure
+     */
+    public T get() throws Throwable {
+        return toTry().get();
+    }
+
+    public T orElse(T value) {
+        return toTry().orElse(value);
+    }
+
+    public Optional<T> toOptional() {
+        return toTry().toOptional();
+    }
+
+    public boolean isSuccessful() {
+        return toTry().isSuccessful();
+    }
+
+    /**
+     * Runs the chain, if it hasn't already been run.
+     *
+     * @return a Success with the value of the last step or a Failure with
+     * the cause of the first step that failed
+     */
+    public Try<T> toTry() {
+        Try<T> result = this.result;
+        if (result == null) {
+            final Object value = source.get();
+            result = toTry(value instanceof Failed ? value : steps.run(length, value, true));
+            this.result = result;
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <U> Try<U> toTry(Object value) {
+        return value instanceof Failed ? (Try<U>) ((Failed) value).failure : Try.successful((U) value);
+    }
+
+    /**
+     * Steps recorded once and applied to many values. Adding a step returns
+     * a new Pipeline and leaves the receiver as it was.
+     *
+     * @param <T> type of the values the pipeline is applied to
+     * @param <R> type of the result of the last step
+     */
+    public static final class Pipeline<T, R> {
+
+        private final Steps steps;
+        private final int length;
+
+        private Pipeline(Steps steps, int length) {
+            this.steps = steps;
+            this.length = length;
+        }
+
+        public <U> Pipeline<T, U> map(Function<? super R, ? extends U> f) {
+            return new Pipeline<>(steps.append(length, MAP, f), length + 1);
+        }
+
+        public <U> Pipeline<T, U> flatMap(Function<? super R, Try<U>> f) {
+            return new Pipeline<>(steps.append(length, FLAT_MAP, f), length + 1);
+        }
+
+        public Pipeline<T, R> filter(Predicate<? super R> pred) {
+            return new Pipeline<>(steps.append(length, FILTER, pred), length + 1);
+        }
+
+        /**
+         * @return a Success with the value of the last step or a Failure
+         * with the cause of the first step that failed
+         */
+        public Try<R> apply(T value) {
+            return toTry(steps.run(length, value, true));
+        }
+
+        /**
+         * Same as apply(value).orElse(other), without creating the Try
+         */
+        @SuppressWarnings("unchecked")
+        public R orElse(T value, R other) {
+            final Object result = steps.run(length, value, false);
+            return result == Failed.WITHOUT_CAUSE ? other : (R) result;
+        }
+
+        /**
+         * @return a LazyTry running these steps on the value of the source
+         */
+        public LazyTry<R> ofThrowable(Supplier<? extends T> f) {
+            Objects.requireNonNull(f);
+            return new LazyTry<>(new Source(f), steps, length);
+        }
+    }
+
+    /*
+        The supplier of a chain and its value once it has been run, shared
+        by every branch of the chain. The first thread to get the value runs
+        the supplier while holding the lock, the value is published by the
+        write to done, so once done is set it is read without locking.
+     */
+    private static final class Source {
+
+        private Supplier<?> supplier;
+        private Object value;
+        private volatile boolean done;
+
+        Source(Supplier<?> supplier) {
+            this.supplier = supplier;
+        }
+
+        Object get() {
+            if (!done) {
+                synchronized (this) {
+                    if (!done) {
+                        try {
+                            value = supplier.get();
+                        } catch (Throwable e) {
+                            value = new Failed(Try.failure(e));
+                        }
+                        supplier = null;
+                        done = true;
+                    }
+                }
+            }
+            return value;
+        }
+    }
+
+    /*
+        A failed run, told apart from any value a step could return. When
+        the cause isn't needed every failure is the same instance, so a
+        filter that doesn't match allocates nothing.
+     */
+    private static final class Failed {
+
+        static final Failed WITHOUT_CAUSE = new Failed(null);
+
+        private final Try<?> failure;
+
+        Failed(Try<?> failure) {
+            this.failure = failure;
+        }
+    }
+
+    /*
+        The recorded steps, kept in flat arrays shared by every LazyTry and
+        Pipeline built on them, each of which sees the first length steps.
+        A step is added in place when the next slot is still unclaimed,
+        which is always the case for a straight chain. A branch that finds
+        its slot taken copies the steps before it into new arrays instead.
+     */
+    private static final class Steps {
+
+        static final Steps EMPTY = new Steps(new byte[0], new Object[0], 0);
+
+        private static final AtomicIntegerFieldUpdater<Steps> CLAIMED =
+                AtomicIntegerFieldUpdater.newUpdater(Steps.class, "claimed");
+
+        private final byte[] kinds;
+        private final Object[] functions;
+        private volatile int claimed;
+
+        private Steps(byte[] kinds, Object[] functions, int claimed) {
+            this.kinds = kinds;
+            this.functions = functions;
+            this.claimed = claimed;
+        }
+
+        Steps append(int length, byte kind, Object function) {
+            Objects.requireNonNull(function);
+            Steps target = this;
+            if (length == kinds.length || !CLAIMED.compareAndSet(this, length, length + 1)) {
+                final int capacity = Math.max(4, 2 * length);
+                target = new Steps(Arrays.copyOf(kinds, capacity), Arrays.copyOf(functions, capacity), length + 1);
+            }
+            target.kinds[length] = kind;
+            target.functions[length] = function;
+            return target;
+        }
+
+        /*
+            The value after the first length steps, or Failed, holding the
+            failure only when asked for
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Object run(int length, Object value, boolean cause) {
+            try {
+                for (int i = 0; i < length; i++) {
+                    switch (kinds[i]) {
+                        case MAP:
+                            value = ((Function) functions[i]).apply(value);
+                            break;
+                        case FLAT_MAP:
+                            final Try<?> next = (Try<?>) ((Function) functions[i]).apply(value);
+                            if (!next.isSuccessful())
+                                return cause ? new Failed(next) : Failed.WITHOUT_CAUSE;
+                            value = next.getUnchecked();
+                            break;
+                        default:
+                            if (!((Predicate) functions[i]).test(value))
+                                return cause ? new Failed(Try.failure(new PredicateMismatchException(value)))
+                                        : Failed.WITHOUT_CAUSE;
+                    }
+                }
+            } catch (Throwable e) {
+                return cause ? new Failed(Try.failure(e)) : Failed.WITHOUT_CAUSE;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package se.andolf.tutorials.monads;
+
+import java.util.List;
+
+/**
+ * Failure cause of a batch of computations where one or more failed.
+ *
+ * It is used even when only one computation failed, so callers that
+ * collect failures always get the same type of cause. Every failure is
+ * kept, in the order of the computations that caused them, and is also
+ * added as a suppressed exception so that stack traces show all of them.
+ */
+public class MultipleFailuresException extends RuntimeException {
+
+    private final transient List<Throwable> failures;
+
+    public MultipleFailuresException(List<Throwable> failures, int total) {
+        super(failures.size() + " of " + total + " computations failed");
+        this.failures = List.copyOf(failures);
+        this.failures.forEach(this::addSuppressed);
+    }
+
+    public List<Throwable> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,23 @@
+package se.andolf.tutorials.monads;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Failure cause of a filtered Try whose predicate didn't match.
+ *
+ * Filtering failures are expected control flow rather than bugs, so this
+ * exception doesn't capture a stack trace. The message is built when the
+ * predicate fails, so it describes the value as it was then and the value
+ * itself isn't kept alive by the exception.
+ */
+final class PredicateMismatchException extends NoSuchElementException {
+
+    PredicateMismatchException(Object value) {
+        super("Predicate doesn't match for " + value);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,67 @@
+package se.andolf.tutorials.monads;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters kept by each Retry, CircuitBreaker and Bulkhead.
+ *
+ * An attempt is every time the protected call is actually run, so a call
+ * that is retried twice counts three attempts and two retries. Rejections
+ * are calls that never ran because a circuit was open or a bulkhead full.
+ */
+public final class ResilienceMetrics {
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    void recordSuccess(long nanos) {
+        attempts.increment();
+        successes.increment();
+        latency.record(nanos);
+    }
+
+    void recordFailure(long nanos) {
+        attempts.increment();
+        failures.increment();
+        latency.record(nanos);
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    void recordRejection() {
+        rejections.increment();
+    }
+
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * @return latencies of every attempt, successful or not
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+}
@@ -0,0 +1,190 @@
+package se.andolf.tutorials.monads;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Runs a call again when it fails, waiting longer between each attempt.
+ *
+ * The delay before attempt n + 1 is the initial delay times multiplier^(n - 1),
+ * capped at the max delay, and then shortened by a random share of up to
+ * jitter of itself so that callers that failed together don't retry
+ * together.
+ *
+ * Nothing blocks while waiting, the next attempt is scheduled on the
+ * scheduler and run on the executor. Each attempt may also be given a
+ * timeout, an attempt that takes too long is cancelled and counts as a
+ * failure with a TimeoutException.
+ *
+ * Copies made by the with methods share the metrics of the Retry they were
+ * made from.
+ */
+public final class Retry {
+
+    public static final Duration DEFAULT_INITIAL_DELAY = Duration.ofMillis(100);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(10);
+    public static final double DEFAULT_MULTIPLIER = 2;
+    public static final double DEFAULT_JITTER = 0.5;
+
+    private final int maxAttempts;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final long initialDelayNanos;
+    private final long maxDelayNanos;
+    private final double multiplier;
+    private final double jitter;
+    private final Duration attemptTimeout;
+    private final Predicate<Throwable> retryOn;
+    private final ResilienceMetrics metrics;
+
+    private Retry(int maxAttempts, ScheduledExecutorService scheduler, Executor executor, long initialDelayNanos,
+                  long maxDelayNanos, double multiplier, double jitter, Duration attemptTimeout,
+                  Predicate<Throwable> retryOn, ResilienceMetrics metrics) {
+        this.maxAttempts = maxAttempts;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.initialDelayNanos = initialDelayNanos;
+        this.maxDelayNanos = maxDelayNanos;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.attemptTimeout = attemptTimeout;
+        this.retryOn = retryOn;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param maxAttempts attempts in total, including the first one
+     * @param scheduler schedules the attempts after the first
+     * @return retry any failure with the default backoff, running the
+     * attempts on the default executor of TryFuture
+     */
+    public static Retry of(int maxAttempts, ScheduledExecutorService scheduler) {
+        if (maxAttempts < 1)
+            throw new IllegalArgumentException("Max attempts must be positive, was " + maxAttempts);
+        return new Retry(maxAttempts, Objects.requireNonNull(scheduler), TryFuture.defaultExecutor(),
+                DEFAULT_INITIAL_DELAY.toNanos(), DEFAULT_MAX_DELAY.toNanos(), DEFAULT_MULTIPLIER, DEFAULT_JITTER,
+                null, e -> true, new ResilienceMetrics());
+    }
+
+    public Retry withBackoff(Duration initialDelay, Duration maxDelay, double multiplier) {
+        if (initialDelay.isNegative() || maxDelay.compareTo(initialDelay) < 0)
+            throw new IllegalArgumentException("Delays must satisfy 0 <= initial <= max, was " + initialDelay + " and " + maxDelay);
+        if (!(multiplier >= 1))
+            throw new IllegalArgumentException("Multiplier must be at least 1, was " + multiplier);
+        return new Retry(maxAttempts, scheduler, executor, initialDelay.toNanos(), maxDelay.toNanos(), multiplier,
+                jitter, attemptTimeout, retryOn, metrics);
+    }
+
+    /**
+     * @param jitter largest share of a delay that may be randomly taken off
+     *               it, between 0 and 1
+     */
+    public Retry withJitter(double jitter) {
+        if (!(jitter >= 0 && jitter <= 1))
+            throw new IllegalArgumentException("Jitter must be between 0 and 1, was " + jitter);
+        return new Retry(maxAttempts, scheduler, executor, initialDelayNanos, maxDelayNanos, multiplier,
+                jitter, attemptTimeout, retryOn, metrics);
+    }
+
+    public Retry withAttemptTimeout(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero())
+            throw new IllegalArgumentException("Attempt timeout must be positive, was " + timeout);
+        return new Retry(maxAttempts, scheduler, executor, initialDelayNanos, maxDelayNanos, multiplier,
+                jitter, timeout, retryOn, metrics);
+    }
+
+    public Retry withExecutor(Executor executor) {
+        return new Retry(maxAttempts, scheduler, Objects.requireNonNull(executor), initialDelayNanos, maxDelayNanos,
+                multiplier, jitter, attemptTimeout, retryOn, metrics);
+    }
+
+    /**
+     * @param retryOn decides from the cause of a failed attempt whether it
+     *                is worth another one
+     */
+    public Retry retryOn(Predicate<Throwable> retryOn) {
+        return new Retry(maxAttempts, scheduler, executor, initialDelayNanos, maxDelayNanos, multiplier,
+                jitter, attemptTimeout, Objects.requireNonNull(retryOn), metrics);
+    }
+
+    /**
+     * Starts the first attempt right away.
+     *
+     * @return completes with the first successful attempt, or fails with the
+     * cause of the last one. Cancelling it cancels the attempt in progress
+     * and any that are scheduled.
+     */
+    public <T> TryFuture<T> execute(Supplier<T> call) {
+        Objects.requireNonNull(call);
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicReference<Runnable> inProgress = new AtomicReference<>(() -> { });
+        attempt(call, 1, result, inProgress);
+        return TryFuture.of(result, () -> inProgress.get().run());
+    }
+
+    public ResilienceMetrics getMetrics() {
+        return metrics;
+    }
+
+    private <T> void attempt(Supplier<T> call, int attempt, CompletableFuture<T> result, AtomicReference<Runnable> inProgress) {
+        if (result.isDone())
+            return;
+        final long start = System.nanoTime();
+        final TryFuture<T> running = TryFuture.ofThrowable(call, executor);
+        final TryFuture<T> future = attemptTimeout != null ? running.withTimeout(attemptTimeout) : running;
+        /* Cancel the computation itself, cancelling the timed stage would leave it running */
+        final Runnable cancelRunning = running::cancel;
+        inProgress.set(cancelRunning);
+        /* Cancelled after the check above, but before the handle was set */
+        if (result.isDone())
+            running.cancel();
+        future.toCompletableFuture().whenComplete((value, e) -> {
+            final long elapsed = System.nanoTime() - start;
+            if (e == null) {
+                metrics.recordSuccess(elapsed);
+                result.complete(value);
+                return;
+            }
+            final Throwable cause = TryFuture.unwrap(e);
+            metrics.recordFailure(elapsed);
+            if (attempt >= maxAttempts || result.isDone() || !retryOn.test(cause)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            metrics.recordRetry();
+            try {
+                /* Anything thrown in a scheduled task is kept by its ScheduledFuture, which nobody reads */
+                final ScheduledFuture<?> next = scheduler.schedule(() -> {
+                    try {
+                        attempt(call, attempt + 1, result, inProgress);
+                    } catch (Throwable thrown) {
+                        result.completeExceptionally(thrown);
+                    }
+                }, delayNanos(attempt), TimeUnit.NANOSECONDS);
+                /* Unless the next attempt has already started and set a handle of its own */
+                inProgress.compareAndSet(cancelRunning, () -> next.cancel(false));
+            } catch (RejectedExecutionException rejected) {
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /**
+     * @param attempt the attempt that just failed, starting at 1
+     * @return nanoseconds to wait before the next attempt
+     */
+    long delayNanos(int attempt) {
+        final double backoff = Math.min(maxDelayNanos, initialDelayNanos * Math.pow(multiplier, attempt - 1));
+        return (long) (backoff * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+}
@@ -0,0 +1,156 @@
+package se.andolf.tutorials.monads;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Operations on batches of Try computations.
+ *
+ * Each operation turns many computations into one Try of the list of their
+ * values, in the order they were given. How failures are reported depends
+ * on the Mode.
+ */
+public final class Tries {
+
+    public enum Mode {
+        /**
+         * Stop at the first failure and fail with its cause. Computations
+         * that haven't run yet are skipped, or cancelled when running in
+         * parallel.
+         */
+        FAIL_FAST,
+        /**
+         * Run every computation, and fail with a MultipleFailuresException
+         * holding every failure if any of them failed.
+         */
+        COLLECT_FAILURES
+    }
+
+    private Tries() {
+    }
+
+    public static <T> Try<List<T>> sequence(Collection<? extends Try<? extends T>> tries) {
+        return sequence(tries, Mode.FAIL_FAST);
+    }
+
+    public static <T> Try<List<T>> sequence(Collection<? extends Try<? extends T>> tries, Mode mode) {
+        Objects.requireNonNull(mode);
+        final List<T> values = new ArrayList<>(tries.size());
+        final List<Throwable> failures = new ArrayList<>();
+        for (Try<? extends T> t : tries) {
+            if (t.isSuccessful()) {
+                values.add(t.getUnchecked());
+            } else if (mode == Mode.FAIL_FAST) {
+                return Try.failure(t.getCause());
+            } else {
+                failures.add(t.getCause());
+            }
+        }
+        return result(values, failures, tries.size());
+    }
+
+    /**
+     * Runs the suppliers one after another.
+     */
+    public static <T> Try<List<T>> ofAll(Collection<? extends Supplier<? extends T>> suppliers, Mode mode) {
+        return traverse(suppliers, Supplier::get, mode);
+    }
+
+    /**
+     * Runs the suppliers in parallel on the executor.
+     */
+    public static <T> Try<List<T>> ofAll(Collection<? extends Supplier<? extends T>> suppliers, Mode mode, Executor executor) {
+        return traverse(suppliers, Supplier::get, mode, executor);
+    }
+
+    /**
+     * Applies f to every item one after another, any exception it throws
+     * counts as a failure for that item.
+     */
+    public static <A, B> Try<List<B>> traverse(Collection<? extends A> items, Function<? super A, ? extends B> f, Mode mode) {
+        Objects.requireNonNull(f);
+        Objects.requireNonNull(mode);
+        final List<B> values = new ArrayList<>(items.size());
+        final List<Throwable> failures = new ArrayList<>();
+        for (A item : items) {
+            try {
+                values.add(f.apply(item));
+            } catch (Throwable e) {
+                if (mode == Mode.FAIL_FAST)
+                    return Try.failure(e);
+                failures.add(e);
+            }
+        }
+        return result(values, failures, items.size());
+    }
+
+    /**
+     * Applies f to every item in parallel on the executor. In FAIL_FAST mode
+     * the first failure cancels every computation that is still pending or
+     * running.
+     */
+    public static <A, B> Try<List<B>> traverse(Collection<? extends A> items, Function<? super A, ? extends B> f, Mode mode, Executor executor) {
+        Objects.requireNonNull(f);
+        Objects.requireNonNull(mode);
+        Objects.requireNonNull(executor);
+        final int total = items.size();
+        final AtomicReferenceArray<TryFuture<B>> futures = new AtomicReferenceArray<>(total);
+        final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+        int i = 0;
+        for (A item : items) {
+            if (mode == Mode.FAIL_FAST && firstFailure.get() != null)
+                break;
+            final TryFuture<B> future = TryFuture.ofThrowable(() -> f.apply(item), executor);
+            futures.set(i++, future);
+            if (mode == Mode.FAIL_FAST) {
+                future.onFailure(e -> {
+                    if (firstFailure.compareAndSet(null, e))
+                        cancelAll(futures);
+                    return null;
+                });
+            }
+        }
+
+        if (mode == Mode.FAIL_FAST && firstFailure.get() != null) {
+            /* A failure may have come in while the rest were being submitted */
+            cancelAll(futures);
+        }
+
+        final List<B> values = new ArrayList<>(total);
+        final List<Throwable> failures = new ArrayList<>();
+        for (int j = 0; j < i; j++) {
+            final Try<B> t = futures.get(j).toTry();
+            if (t.isSuccessful()) {
+                values.add(t.getUnchecked());
+            } else if (mode == Mode.FAIL_FAST) {
+                /* Report what failed rather than what got cancelled because of it */
+                return Try.failure(firstFailure.get() != null ? firstFailure.get() : t.getCause());
+            } else {
+                failures.add(t.getCause());
+            }
+        }
+        return result(values, failures, total);
+    }
+
+    private static void cancelAll(AtomicReferenceArray<? extends TryFuture<?>> futures) {
+        for (int i = 0; i < futures.length(); i++) {
+            final TryFuture<?> future = futures.get(i);
+            if (future != null)
+                future.cancel();
+        }
+    }
+
+    private static <T> Try<List<T>> result(List<T> values, List<Throwable> failures, int total) {
+        if (failures.isEmpty())
+            return Try.successful(values);
+        return Try.failure(new MultipleFailuresException(failures, total));
+    }
+}
@@ -1,6 +1,5 @@
 package se.andolf.tutorials.monads;
 
-import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
@@ -126,6 +125,14 @@ public abstract class Try<T> {
      */
     protected abstract T getUnchecked();
 
+    /**
+     * The cause of a failed Try, for code in this package that needs it
+     * without rethrowing it.
+     *
+     * @return the cause of the failure, or null if the Try succeeded
+     */
+    abstract Throwable getCause();
+
     /**
      * Factory method for failure object.
      *
@@ -162,7 +169,13 @@ class Success<T> extends Try<T> {
         Objects.requireNonNull(f);
 
         try {
-            return new Success<>(f.apply(value));
+            final U result = f.apply(value);
+            if (result == value) {
+                @SuppressWarnings("unchecked")
+                final Try<U> self = (Try<U>) this;
+                return self;
+            }
+            return new Success<>(result);
         } catch (Throwable e) {
             return Try.failure(e);
         }
@@ -178,7 +191,7 @@ class Success<T> extends Try<T> {
         if(pred.test(value))
             return this;
         else {
-            return Try.failure(new NoSuchElementException("Predicate doesn't match for " + value));
+            return Try.failure(new PredicateMismatchException(value));
         }
     }
 
@@ -222,6 +235,11 @@ class Success<T> extends Try<T> {
     public T getUnchecked() {
         return value;
     }
+
+    @Override
+    Throwable getCause() {
+        return null;
+    }
 }
 
 class Failure<T> extends Try<T> {
@@ -231,16 +249,30 @@ class Failure<T> extends Try<T> {
         this.e = e;
     }
 
+    @Override
+    Throwable getCause() {
+        return e;
+    }
+
     @Override
     public <U> Failure<U> map(Function<? super T, ? extends U> f) {
         Objects.requireNonNull(f);
-        return Try.failure(e);
+        return self();
     }
 
     @Override
     public <U> Try<U> flatMap(Function<? super T, Try<U>> f) {
         Objects.requireNonNull(f);
-        return Try.failure(e);
+        return self();
+    }
+
+    /**
+     * A failure holds no value, so the same instance can stand in for a
+     * failure of any type instead of allocating a new one.
+     */
+    @SuppressWarnings("unchecked")
+    private <U> Failure<U> self() {
+        return (Failure<U>) this;
     }
 
     @Override
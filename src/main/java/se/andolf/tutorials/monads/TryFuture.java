@@ -0,0 +1,249 @@
+package se.andolf.tutorials.monads;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous counterpart of Try, a computation that runs on an executor
+ * and eventually becomes a Success or a Failure.
+ *
+ * map, flatMap, filter, onSuccess and onFailure behave like they do on Try,
+ * but are applied when the computation completes, without blocking the
+ * caller. Only toTry waits for the result.
+ *
+ * Unless an executor is given the computation runs on a virtual thread
+ * when the JDK supports them, and on the common fork join pool otherwise.
+ *
+ * @param <T>
+ */
+public final class TryFuture<T> {
+
+    private final CompletableFuture<T> future;
+    private final Runnable cancellation;
+
+    private TryFuture(CompletableFuture<T> future, Runnable cancellation) {
+        this.future = future;
+        this.cancellation = cancellation;
+    }
+
+    public static <U> TryFuture<U> ofThrowable(Supplier<U> f) {
+        return ofThrowable(f, defaultExecutor());
+    }
+
+    /**
+     * Runs the computation on the given executor. If the executor rejects
+     * it, the TryFuture fails with the RejectedExecutionException.
+     */
+    public static <U> TryFuture<U> ofThrowable(Supplier<U> f, Executor executor) {
+        Objects.requireNonNull(f);
+        Objects.requireNonNull(executor);
+        final CompletableFuture<U> future = new CompletableFuture<>();
+        final Runnable task = () -> {
+            if (future.isDone())
+                return;
+            try {
+                future.complete(f.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        /* A FutureTask rather than submit, a ForkJoinTask is never interrupted when cancelled */
+        final FutureTask<Void> running = new FutureTask<>(task, null);
+        try {
+            executor.execute(() -> {
+                running.run();
+                /*
+                    run waits for the interrupt of a cancel(true) to be
+                    delivered before it returns, but leaves it set. Clear it
+                    so it doesn't reach the next task on a pooled thread.
+                 */
+                if (running.isCancelled())
+                    Thread.interrupted();
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return new TryFuture<>(future, () -> running.cancel(true));
+    }
+
+    /**
+     * @return an already completed TryFuture holding the given Try
+     */
+    public static <U> TryFuture<U> of(Try<U> t) {
+        final CompletableFuture<U> future = new CompletableFuture<>();
+        if (t.isSuccessful())
+            future.complete(t.getUnchecked());
+        else
+            t.<RuntimeException>onFailure(e -> {
+                future.completeExceptionally(e);
+                return null;
+            });
+        return new TryFuture<>(future, () -> { });
+    }
+
+    /**
+     * Wraps a future completed by someone else, cancelling the TryFuture
+     * also runs the given cancellation.
+     */
+    static <U> TryFuture<U> of(CompletableFuture<U> future, Runnable cancellation) {
+        return new TryFuture<>(future, cancellation);
+    }
+
+    /**
+     * The executor used when none is given, virtual threads where the JDK
+     * has them and the common fork join pool otherwise.
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutor.INSTANCE;
+    }
+
+    public <U> TryFuture<U> map(Function<? super T, ? extends U> f) {
+        Objects.requireNonNull(f);
+        return derive(future.thenApply(f));
+    }
+
+    public <U> TryFuture<U> flatMap(Function<? super T, TryFuture<U>> f) {
+        Objects.requireNonNull(f);
+        return derive(future.thenCompose(value -> f.apply(value).future));
+    }
+
+    public TryFuture<T> filter(Predicate<T> pred) {
+        Objects.requireNonNull(pred);
+        return derive(future.thenApply(value -> {
+            if (pred.test(value))
+                return value;
+            throw new CompletionException(new PredicateMismatchException(value));
+        }));
+    }
+
+    /**
+     * Applies the action once the computation succeeds. If the action
+     * throws, the returned TryFuture fails with what it threw.
+     */
+    public <E extends Throwable> TryFuture<T> onSuccess(ThrowableConsumer<T, E> action) {
+        Objects.requireNonNull(action);
+        return derive(future.thenApply(value -> {
+            try {
+                action.accept(value);
+            } catch (Throwable e) {
+                throw new CompletionException(e);
+            }
+            return value;
+        }));
+    }
+
+    /**
+     * Applies the action once the computation fails, with the cause of the
+     * failure. Takes the same function as Try.onFailure, its result is
+     * ignored. If the action throws, the returned TryFuture fails with what
+     * it threw, otherwise with the same cause.
+     */
+    public <E extends Throwable> TryFuture<T> onFailure(Function<Throwable, E> action) {
+        Objects.requireNonNull(action);
+        return derive(future.handle((value, e) -> {
+            if (e == null)
+                return value;
+            final Throwable cause = unwrap(e);
+            try {
+                action.apply(cause);
+            } catch (Throwable thrown) {
+                throw new CompletionException(thrown);
+            }
+            throw new CompletionException(cause);
+        }));
+    }
+
+    /**
+     * Fails with a TimeoutException if this hasn't completed within the
+     * given time, and then cancels this like cancel does.
+     */
+    public TryFuture<T> withTimeout(Duration timeout) {
+        final CompletableFuture<T> timed = future.copy().orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        timed.whenComplete((value, e) -> {
+            if (e != null && !future.isDone())
+                cancel();
+        });
+        return derive(timed);
+    }
+
+    /**
+     * Cancels the computation, interrupting the thread running it if it
+     * has started and keeping it from starting otherwise. The TryFuture
+     * then fails with a CancellationException. The interrupt is cleared
+     * once the computation has returned, so on a pooled executor it never
+     * reaches the next task of that thread.
+     *
+     * Only a TryFuture from ofThrowable runs a computation. One made by
+     * map, flatMap or the other operations is a stage of its own, and
+     * cancelling it only cancels that stage, the TryFuture it was made from
+     * and any other stage made from it carry on.
+     *
+     * @return false if it had already completed
+     */
+    public boolean cancel() {
+        final boolean cancelled = future.cancel(false);
+        cancellation.run();
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * Waits for the computation to complete.
+     *
+     * @return a Success with the value or a Failure with the cause
+     */
+    public Try<T> toTry() {
+        try {
+            return Try.successful(future.get());
+        } catch (ExecutionException e) {
+            return Try.failure(unwrap(e.getCause()));
+        } catch (CancellationException e) {
+            return Try.failure(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Try.failure(e);
+        }
+    }
+
+    public CompletableFuture<T> toCompletableFuture() {
+        return future.copy();
+    }
+
+    private <U> TryFuture<U> derive(CompletableFuture<U> derived) {
+        return new TryFuture<>(derived, () -> { });
+    }
+
+    static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static final class DefaultExecutor {
+
+        private static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            try {
+                final Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (Executor) factory.invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return ForkJoinPool.commonPool();
+            }
+        }
+    }
+}
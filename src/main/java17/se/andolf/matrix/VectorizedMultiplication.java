@@ -0,0 +1,87 @@
+package se.andolf.matrix;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+    SIMD matrix product, C += A * B
+
+    Same tiling and packing as the blocked kernel, which it reuses, only
+    the inner loop is replaced. It adds alpha * row into the accumulator a
+    whole vector at a time using the widest int species the hardware
+    offers. There is no fused multiply-add for integer lanes, a mul
+    followed by an add is what the JIT turns into vpmulld + vpaddd.
+
+    The Vector API lives in an incubator module that is only resolved when
+    the JVM is started with --add-modules jdk.incubator.vector. Without it
+    we must not touch any of its classes, so everything that does is kept
+    in the Kernel class and we fall back to the scalar kernel.
+
+    Set -Dse.andolf.matrix.simd=false to force the scalar kernel.
+ */
+final class VectorizedMultiplication {
+
+    private static final boolean AVAILABLE = Boolean.parseBoolean(System.getProperty("se.andolf.matrix.simd", "true"))
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private VectorizedMultiplication() {
+    }
+
+    static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    static void multiply(Matrix a, Matrix b, Matrix c) {
+        if (isAvailable())
+            new Kernel(a, b, c).run();
+        else
+            BlockedMultiplication.multiply(a, b, c);
+    }
+
+    /*
+        Packs into the given scratch space instead of allocating its own
+     */
+    static void multiply(int[] a, int aOffset, int aStride,
+                         int[] b, int bOffset, int bStride,
+                         int[] c, int cOffset, int cStride,
+                         int n, int m, int p, BlockedMultiplication.IntScratch scratch) {
+        if (isAvailable())
+            new Kernel(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride, n, m, p, scratch).run();
+        else
+            BlockedMultiplication.multiply(a, aOffset, aStride, b, bOffset, bStride, c, cOffset, cStride, n, m, p,
+                    scratch);
+    }
+
+    private static final class Kernel extends BlockedMultiplication.IntTiling {
+
+        private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+        Kernel(Matrix a, Matrix b, Matrix c) {
+            super(a.data(), a.offset(), a.stride(),
+                    b.data(), b.offset(), b.stride(),
+                    c.data(), c.offset(), c.stride(),
+                    a.getRowLength(), a.getColLength(), b.getColLength(), 1);
+        }
+
+        Kernel(int[] a, int aOffset, int aStride,
+               int[] b, int bOffset, int bStride,
+               int[] c, int cOffset, int cStride,
+               int n, int m, int p, BlockedMultiplication.IntScratch scratch) {
+            super(a, aOffset, aStride, 1, b, bOffset, bStride, 1, c, cOffset, cStride, n, m, p, 1, scratch);
+        }
+
+        @Override
+        void axpy(int alpha, int[] row, int[] accumulator, int length) {
+            final int upper = SPECIES.loopBound(length);
+            int j = 0;
+            for (; j < upper; j += SPECIES.length()) {
+                IntVector.fromArray(SPECIES, accumulator, j)
+                        .add(IntVector.fromArray(SPECIES, row, j).mul(alpha))
+                        .intoArray(accumulator, j);
+            }
+            for (; j < length; j++) {
+                accumulator[j] += alpha * row[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package se.andolf.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DoubleMatrixTest {
+
+    @Test
+    public void shouldMultiplyTwoMatrices() {
+        final DoubleMatrix matrix1 = new DoubleMatrix(new double[][] {{ 0.5, 3, 5 }, { 5, 5, 2 }});
+        final DoubleMatrix matrix2 = new DoubleMatrix(new double[][] {{ 3, 4 }, { 3, -2 }, { 4, -2.5 }});
+
+        final DoubleMatrix product = matrix1.multiply(matrix2);
+
+        assertArrayEquals(new double[] { 30.5, -16.5 }, product.getRow(0));
+        assertArrayEquals(new double[] { 38, 5 }, product.getRow(1));
+    }
+
+    @Test
+    public void shouldPropagateNaNThroughZeroCells() {
+        final DoubleMatrix matrix1 = new DoubleMatrix(new double[][] {{ 0, 1 }});
+        final DoubleMatrix matrix2 = new DoubleMatrix(new double[][] {{ Double.NaN }, { 1 }});
+
+        assertTrue(Double.isNaN(matrix1.multiply(matrix2).get(0, 0)));
+    }
+
+    @Test
+    public void shouldNotMultiplyMismatchedMatrices() {
+        final DoubleMatrix matrix = new DoubleMatrix(new double[][] {{ 1, 2 }});
+        assertThrows(IllegalArgumentException.class, () -> matrix.multiply(matrix));
+    }
+}
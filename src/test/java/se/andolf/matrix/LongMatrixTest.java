@@ -0,0 +1,57 @@
+package se.andolf.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongMatrixTest {
+
+    @Test
+    public void shouldMultiplyTwoMatrices() {
+        final long big = 1L << 40;
+        final LongMatrix matrix1 = new LongMatrix(new long[][] {{ 0, 3, big }, { 5, 5, 2 }});
+        final LongMatrix matrix2 = new LongMatrix(new long[][] {{ 3, 4 }, { 3, -2 }, { 4, -2 }});
+
+        final LongMatrix product = matrix1.multiply(matrix2);
+
+        assertArrayEquals(new long[][] {{ 9 + 4 * big, -6 - 2 * big }, { 38, 6 }}, product.toArray());
+    }
+
+    @Test
+    public void shouldMultiplyAcrossBlockBoundaries() {
+        final int n = 200, m = 190, p = 185;
+        final LongMatrix matrix1 = new LongMatrix(n, m);
+        final LongMatrix matrix2 = new LongMatrix(m, p);
+        for (int i = 0; i < n; i++)
+            for (int k = 0; k < m; k++)
+                matrix1.set(i, k, (i * 31L + k * 7L) % 11 - 5);
+        for (int k = 0; k < m; k++)
+            for (int j = 0; j < p; j++)
+                matrix2.set(k, j, (k * 13L + j * 3L) % 9 - 4);
+
+        final LongMatrix product = matrix1.multiply(matrix2);
+
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < p; j++) {
+                long expected = 0;
+                for (int k = 0; k < m; k++)
+                    expected += matrix1.get(i, k) * matrix2.get(k, j);
+                assertEquals(expected, product.get(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void shouldShareStorageWithViews() {
+        final LongMatrix matrix = new LongMatrix(new long[][] {{ 1, 2 }, { 3, 4 }});
+        matrix.column(1).set(1, 0, 40);
+        assertArrayEquals(new long[] { 3, 40 }, matrix.row(1).getRow(0));
+    }
+
+    @Test
+    public void shouldGetEmptyRowsOfMatrixWithoutColumns() {
+        final LongMatrix matrix = new LongMatrix(2, 0);
+        assertArrayEquals(new long[][] {{}, {}}, matrix.toArray());
+        assertThrows(IndexOutOfBoundsException.class, () -> matrix.getRow(2));
+    }
+}
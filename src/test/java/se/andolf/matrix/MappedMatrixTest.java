@@ -0,0 +1,96 @@
+package se.andolf.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedMatrixTest {
+
+    @Test
+    public void shouldReadAndWriteCellsOffHeap() {
+        final MappedMatrix matrix = MappedMatrix.of(new Matrix(new int[][] {{ 1, 2, 3 }, { 4, 5, 6 }}));
+        matrix.set(1, 2, 60);
+
+        assertEquals(2, matrix.get(0, 1));
+        assertEquals(60, matrix.get(1, 2));
+        assertArrayEquals(new int[] { 4, 5, 60 }, matrix.getRow(1));
+        assertArrayEquals(new int[] { 3, 60 }, matrix.getColumn(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> matrix.get(2, 0));
+    }
+
+    @Test
+    public void shouldAllocateMatricesWithoutColumns() {
+        final MappedMatrix matrix = MappedMatrix.allocateDirect(Integer.MAX_VALUE, 0);
+        assertEquals(Integer.MAX_VALUE, matrix.getRowLength());
+        assertEquals(0, MappedMatrix.allocateDirect(0, 0).getRowLength());
+    }
+
+    @Test
+    public void shouldReturnEmptyRowsAndColumns() {
+        final MappedMatrix noColumns = MappedMatrix.allocateDirect(3, 0);
+        final MappedMatrix noRows = MappedMatrix.allocateDirect(0, 3);
+
+        assertArrayEquals(new int[0], noColumns.getRow(2));
+        assertArrayEquals(new int[0], noRows.getColumn(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> noColumns.getRow(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> noColumns.getColumn(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> noRows.getRow(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> noRows.getColumn(-1));
+    }
+
+    @Test
+    public void shouldCopyTiles() {
+        final MappedMatrix matrix = MappedMatrix.allocateDirect(4, 4);
+        matrix.writeTile(1, 2, new Matrix(new int[][] {{ 1, 2 }, { 3, 4 }}));
+
+        assertArrayEquals(new int[][] {{ 0, 1 }, { 0, 3 }}, matrix.readTile(1, 1, 2, 2).toArray());
+        assertThrows(IndexOutOfBoundsException.class, () -> matrix.readTile(3, 3, 2, 2));
+    }
+
+    @Test
+    public void shouldMultiplyTileByTile() {
+        final Matrix matrix1 = MatrixFixtures.filled(23, 17, 3);
+        final Matrix matrix2 = MatrixFixtures.filled(17, 29, 5);
+        final MappedMatrix product = MappedMatrix.allocateDirect(23, 29);
+
+        MappedMatrix.of(matrix1).multiply(MappedMatrix.of(matrix2), product, 8);
+
+        assertArrayEquals(matrix1.multiply(matrix2).toArray(), product.toMatrix().toArray());
+    }
+
+    @Test
+    public void shouldMapMatrixFiles() throws IOException {
+        final Path file1 = Files.createTempFile("matrix", ".bin");
+        final Path file2 = Files.createTempFile("product", ".bin");
+        try {
+            final MappedMatrix matrix = MappedMatrix.create(file1, 2, 2);
+            matrix.writeTile(0, 0, new Matrix(new int[][] {{ 1, 2 }, { 3, 4 }}));
+            matrix.flush();
+
+            final MappedMatrix reopened = MappedMatrix.open(file1, false);
+            assertEquals(MatrixFormat.HEADER_SIZE + 4 * Integer.BYTES, Files.size(file1));
+            assertArrayEquals(new int[][] {{ 1, 2 }, { 3, 4 }}, reopened.toMatrix().toArray());
+
+            final MappedMatrix product = reopened.multiply(reopened, file2);
+            assertArrayEquals(new int[][] {{ 7, 10 }, { 15, 22 }}, product.toMatrix().toArray());
+        } finally {
+            Files.deleteIfExists(file1);
+            Files.deleteIfExists(file2);
+        }
+    }
+
+    @Test
+    public void shouldNotOpenOtherFiles() throws IOException {
+        final Path file = Files.createTempFile("matrix", ".bin");
+        try {
+            Files.write(file, new byte[64]);
+            assertThrows(IOException.class, () -> MappedMatrix.open(file, false));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package se.andolf.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatrixExpressionTest {
+
+    private static final Matrix A = new Matrix(new int[][] {{ 0, 3, 5 }, { 5, 5, 2 }});
+    private static final Matrix B = new Matrix(new int[][] {{ 3, 4 }, { 3, -2 }, { 4, -2 }});
+    private static final Matrix C = new Matrix(new int[][] {{ 1, 2 }, { 3, 4 }});
+
+    @Test
+    public void shouldMultiplyAndAdd() {
+        final Matrix result = A.lazy().times(B).plus(C).materialize();
+        assertArrayEquals(new int[][] {{ 30, -14 }, { 41, 10 }}, result.toArray());
+    }
+
+    @Test
+    public void shouldAddBeforeMultiplying() {
+        final Matrix result = C.lazy().plus(A.lazy().times(B)).materialize();
+        assertArrayEquals(new int[][] {{ 30, -14 }, { 41, 10 }}, result.toArray());
+    }
+
+    @Test
+    public void shouldTransposeProduct() {
+        final Matrix result = A.lazy().times(B).transpose().materialize();
+        assertArrayEquals(new int[][] {{ 29, 38 }, { -16, 6 }}, result.toArray());
+    }
+
+    @Test
+    public void shouldScale() {
+        final Matrix result = A.lazy().times(B).scale(2).plus(C.lazy().scale(-1)).materialize();
+        assertArrayEquals(new int[][] {{ 57, -34 }, { 73, 8 }}, result.toArray());
+    }
+
+    @Test
+    public void shouldMultiplyChains() {
+        final Matrix result = A.lazy().times(B).times(C.lazy().plus(C)).materialize();
+        final Matrix expected = A.multiply(B).multiply(new Matrix(new int[][] {{ 2, 4 }, { 6, 8 }}));
+        assertArrayEquals(expected.toArray(), result.toArray());
+    }
+
+    @Test
+    public void shouldMultiplyTransposedLeaves() {
+        final Matrix result = B.lazy().transpose().times(A.lazy().transpose()).materialize();
+        assertArrayEquals(new int[][] {{ 29, 38 }, { -16, 6 }}, result.toArray());
+    }
+
+    @Test
+    public void shouldMultiplyTransposedViewsAcrossBlocks() {
+        final Matrix a = MatrixFixtures.filled(300, 270, 3).subMatrix(10, 5, 280, 260);
+        final Matrix b = MatrixFixtures.filled(290, 300, 5).subMatrix(4, 20, 270, 280);
+        final Matrix result = a.lazy().transpose().times(b.lazy().transpose()).materialize();
+        assertArrayEquals(transposed(b.multiply(a)).toArray(), result.toArray());
+    }
+
+    @Test
+    public void shouldNotChangeOperands() {
+        A.lazy().times(B).scale(3).plus(C).transpose().materialize();
+        assertArrayEquals(new int[][] {{ 1, 2 }, { 3, 4 }}, C.toArray());
+        assertArrayEquals(new int[][] {{ 0, 3, 5 }, { 5, 5, 2 }}, A.toArray());
+    }
+
+    @Test
+    public void shouldRejectMismatchedDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> A.lazy().times(C));
+        assertThrows(IllegalArgumentException.class, () -> A.lazy().plus(C));
+    }
+
+    private static Matrix transposed(Matrix matrix) {
+        final Matrix transposed = new Matrix(matrix.getColLength(), matrix.getRowLength());
+        for (int x = 0; x < matrix.getRowLength(); x++)
+            for (int y = 0; y < matrix.getColLength(); y++)
+                transposed.set(y, x, matrix.get(x, y));
+        return transposed;
+    }
+}
@@ -0,0 +1,22 @@
+package se.andolf.matrix;
+
+/*
+    Matrices shared by the tests of this package
+ */
+final class MatrixFixtures {
+
+    private MatrixFixtures() {
+    }
+
+    /*
+        A matrix of small values, positive and negative, that differ with
+        the seed so two fixtures of the same shape don't commute.
+     */
+    static Matrix filled(int rows, int cols, int seed) {
+        final Matrix matrix = new Matrix(rows, cols);
+        for (int x = 0; x < rows; x++)
+            for (int y = 0; y < cols; y++)
+                matrix.set(x, y, (x * seed + y * 7) % 13 - 6);
+        return matrix;
+    }
+}
@@ -2,6 +2,8 @@ package se.andolf.matrix;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class MatrixTest {
@@ -50,4 +52,185 @@ public class MatrixTest {
         assertEquals(38, matrixSum.get(1,0));
         assertEquals(6, matrixSum.get(1,1));
     }
+
+    @Test
+    public void shouldMultiplyAcrossBlockBoundaries() {
+        final int n = 150, m = 70, p = 131;
+        final int[][] values1 = new int[n][m];
+        final int[][] values2 = new int[m][p];
+        for (int i = 0; i < n; i++)
+            for (int k = 0; k < m; k++)
+                values1[i][k] = (i * 31 + k * 7) % 11 - 5;
+        for (int k = 0; k < m; k++)
+            for (int j = 0; j < p; j++)
+                values2[k][j] = (k * 13 + j * 3) % 9 - 4;
+
+        final Matrix product = new Matrix(values1).multiply(new Matrix(values2));
+
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < p; j++) {
+                int expected = 0;
+                for (int k = 0; k < m; k++)
+                    expected += values1[i][k] * values2[k][j];
+                assertEquals(expected, product.get(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotMultiplyMismatchedMatrices() {
+        final Matrix matrix1 = new Matrix(new int[][] {{ 1, 2 }});
+        final Matrix matrix2 = new Matrix(new int[][] {{ 1, 2 }});
+        assertThrows(IllegalArgumentException.class, () -> matrix1.multiply(matrix2));
+    }
+
+    @Test
+    public void shouldRejectRaggedInput() {
+        final int[][] numbers = {{ 1, 2, 3 }, { 1, 2 }};
+        assertThrows(IllegalArgumentException.class, () -> new Matrix(numbers));
+    }
+
+    @Test
+    public void shouldNotAliasInput() {
+        final int[][] numbers = {{ 1, 2 }, { 3, 4 }};
+        final Matrix matrix = new Matrix(numbers);
+        numbers[0][0] = 9;
+        matrix.getRow(1)[0] = 9;
+        assertEquals(1, matrix.get(0, 0));
+        assertEquals(3, matrix.get(1, 0));
+    }
+
+    @Test
+    public void shouldShareStorageWithViews() {
+        final int[][] numbers = {{ 1, 2, 3 }, { 4, 5, 6 }, { 7, 8, 9 }};
+        final Matrix matrix = new Matrix(numbers);
+
+        final Matrix column = matrix.column(1);
+        final Matrix row = matrix.row(2);
+        final Matrix sub = matrix.subMatrix(1, 1, 2, 2);
+
+        assertArrayEquals(new int[] { 2, 5, 8 }, column.getColumn(0));
+        assertArrayEquals(new int[] { 7, 8, 9 }, row.getRow(0));
+        assertEquals(9, sub.get(1, 1));
+
+        sub.set(0, 0, 50);
+        assertEquals(50, matrix.get(1, 1));
+        assertEquals(50, column.get(1, 0));
+        assertEquals("50 6 \n8 9 \n", sub.toString());
+    }
+
+    @Test
+    public void shouldMultiplyViews() {
+        final int[][] numbers = {{ 0, 3, 5, 9 }, { 5, 5, 2, 9 }, { 9, 9, 9, 9 }};
+        final Matrix matrix = new Matrix(numbers).subMatrix(0, 0, 2, 3);
+        final Matrix other = new Matrix(new int[][] {{ 3, 4 }, { 3, -2 }, { 4, -2 }});
+
+        assertArrayEquals(new int[][] {{ 29, -16 }, { 38, 6 }}, matrix.multiply(other).toArray());
+    }
+
+    @Test
+    public void shouldNotAccessOutsideOfView() {
+        final Matrix matrix = new Matrix(new int[][] {{ 1, 2 }, { 3, 4 }}).row(0);
+        assertThrows(IndexOutOfBoundsException.class, () -> matrix.get(1, 0));
+    }
+
+    @Test
+    public void shouldGetEmptyRowsAndColumns() {
+        final Matrix noColumns = new Matrix(3, 0);
+        final Matrix noRows = new Matrix(0, 3);
+
+        assertArrayEquals(new int[0], noColumns.getRow(2));
+        assertArrayEquals(new int[][] {{}, {}, {}}, noColumns.toArray());
+        assertArrayEquals(new int[0], noRows.getColumn(2));
+        assertArrayEquals(new int[0][], noRows.toArray());
+        assertArrayEquals(new int[0], new Matrix(new int[][] {{ 1, 2 }, { 3, 4 }}).subMatrix(1, 1, 1, 0).getRow(0));
+    }
+
+    @Test
+    public void shouldNotGetRowsOrColumnsOutsideOfMatrix() {
+        final Matrix matrix = new Matrix(2, 0);
+        assertThrows(IndexOutOfBoundsException.class, () -> matrix.getRow(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> matrix.getColumn(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> new Matrix(2, 2).getRow(-1));
+    }
+
+    @Test
+    public void shouldMultiplyInParallel() {
+        final Matrix matrix1 = MatrixFixtures.filled(97, 61, 3);
+        final Matrix matrix2 = MatrixFixtures.filled(61, 113, 5);
+        final Matrix expected = matrix1.multiply(matrix2);
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Matrix product = matrix1.multiply(matrix2, Parallelism.of(pool).withThreshold(1000));
+            assertArrayEquals(expected.toArray(), product.toArray());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldNotAcceptNonPositiveThreshold() {
+        assertThrows(IllegalArgumentException.class, () -> Parallelism.commonPool().withThreshold(0));
+    }
+
+    @Test
+    public void shouldMultiplyWithStrassen() {
+        for (int n : new int[] { 1, 16, 37, 64, 100 }) {
+            final Matrix matrix1 = MatrixFixtures.filled(n, n, 3);
+            final Matrix matrix2 = MatrixFixtures.filled(n, n, 5);
+            final Matrix expected = new Matrix(n, n);
+            BlockedMultiplication.multiply(matrix1, matrix2, expected);
+
+            final Matrix product = new Matrix(n, n);
+            StrassenMultiplication.multiply(matrix1, matrix2, product, 8);
+
+            assertArrayEquals(expected.toArray(), product.toArray());
+        }
+    }
+
+    @Test
+    public void shouldMultiplyViewsWithStrassen() {
+        final Matrix matrix = MatrixFixtures.filled(40, 40, 3);
+        final Matrix view1 = matrix.subMatrix(1, 2, 32, 32);
+        final Matrix view2 = matrix.subMatrix(5, 7, 32, 32);
+        final Matrix expected = new Matrix(32, 32);
+        BlockedMultiplication.multiply(view1, view2, expected);
+
+        final Matrix product = new Matrix(32, 32);
+        StrassenMultiplication.multiply(view1, view2, product, 4);
+
+        assertArrayEquals(expected.toArray(), product.toArray());
+    }
+
+    @Test
+    public void shouldUseStrassenAboveTwiceTheCutover() {
+        final int n = 2 * StrassenMultiplication.CUTOVER + 1;
+        final Matrix matrix1 = MatrixFixtures.filled(n, n, 3);
+        final Matrix matrix2 = MatrixFixtures.filled(n, n, 5);
+        final Matrix expected = new Matrix(n, n);
+        BlockedMultiplication.multiply(matrix1, matrix2, expected);
+
+        assertTrue(StrassenMultiplication.isApplicable(matrix1, matrix2));
+        assertFalse(StrassenMultiplication.isApplicable(matrix1.subMatrix(0, 0, n - 1, n - 1),
+                matrix2.subMatrix(0, 0, n - 1, n - 1)));
+        assertArrayEquals(expected.toArray(), matrix1.multiply(matrix2).toArray());
+    }
+
+    @Test
+    public void shouldNotPadPastTheLargestArray() {
+        assertTrue(StrassenMultiplication.canPad(46_336, StrassenMultiplication.CUTOVER));
+        assertFalse(StrassenMultiplication.canPad(46_340, StrassenMultiplication.CUTOVER));
+    }
+
+    @Test
+    public void shouldMultiplyWithoutOverflowIntoLong() {
+        final Matrix matrix1 = new Matrix(new int[][] {{ Integer.MAX_VALUE, Integer.MAX_VALUE }});
+        final Matrix matrix2 = new Matrix(new int[][] {{ Integer.MAX_VALUE }, { 2 }});
+
+        final LongMatrix product = matrix1.multiplyToLong(matrix2);
+
+        assertEquals((long) Integer.MAX_VALUE * Integer.MAX_VALUE + 2L * Integer.MAX_VALUE, product.get(0, 0));
+        assertNotEquals(product.get(0, 0), matrix1.multiply(matrix2).get(0, 0));
+    }
 }
@@ -0,0 +1,213 @@
+package se.andolf.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatrixWriterTest {
+
+    @Test
+    public void shouldWriteAndReadMatrix() throws IOException {
+        final Matrix matrix = new Matrix(new int[][] {{ 1, -2, 3 }, { Integer.MAX_VALUE, 5, Integer.MIN_VALUE }});
+
+        final byte[] bytes = write(matrix, false);
+
+        assertEquals(MatrixFormat.HEADER_SIZE + 6 * Integer.BYTES, bytes.length);
+        assertEquals(1, bytes[MatrixFormat.HEADER_SIZE]);
+        assertArrayEquals(matrix.toArray(), reader(bytes).readMatrix().toArray());
+    }
+
+    @Test
+    public void shouldWriteViews() throws IOException {
+        final Matrix matrix = new Matrix(new int[][] {{ 1, 2, 3 }, { 4, 5, 6 }}).subMatrix(0, 1, 2, 2);
+        assertArrayEquals(new int[][] {{ 2, 3 }, { 5, 6 }}, reader(write(matrix, false)).readMatrix().toArray());
+    }
+
+    @Test
+    public void shouldWriteAndReadLargeMatrixWithChecksums() throws IOException {
+        final Matrix matrix = new Matrix(700, 1000);
+        for (int x = 0; x < 700; x++)
+            for (int y = 0; y < 1000; y++)
+                matrix.set(x, y, x * 1000 + y);
+
+        final byte[] bytes = write(matrix, true);
+
+        assertEquals(MatrixFormat.HEADER_SIZE + 2_800_000 + 3 * Integer.BYTES, bytes.length);
+        assertArrayEquals(matrix.getRow(699), reader(bytes).readMatrix().getRow(699));
+    }
+
+    @Test
+    public void shouldDetectCorruptedChunk() throws IOException {
+        final Matrix matrix = new Matrix(new int[][] {{ 1, 2 }, { 3, 4 }});
+        final byte[] bytes = write(matrix, true);
+        bytes[MatrixFormat.HEADER_SIZE + 5]++;
+
+        assertThrows(IOException.class, () -> reader(bytes).readMatrix());
+    }
+
+    @Test
+    public void shouldRejectChunksOfPartialElements() throws IOException {
+        final byte[] bytes = write(new Matrix(new int[][] {{ 1, 2 }, { 3, 4 }}), true);
+        setChunkSize(bytes, 6);
+
+        assertThrows(IOException.class, () -> reader(bytes).readMatrix());
+    }
+
+    @Test
+    public void shouldRejectEmptyChunks() throws IOException {
+        final byte[] bytes = write(new Matrix(new int[][] {{ 1, 2 }, { 3, 4 }}), true);
+        setChunkSize(bytes, 0);
+
+        assertThrows(IOException.class, () -> reader(bytes).readMatrix());
+    }
+
+    @Test
+    public void shouldRejectChunkSizeWithoutChecksums() throws IOException {
+        final byte[] bytes = write(new Matrix(new int[][] {{ 1, 2 }, { 3, 4 }}), false);
+        setChunkSize(bytes, -4);
+
+        assertThrows(IOException.class, () -> reader(bytes).readMatrix());
+    }
+
+    @Test
+    public void shouldReadChecksumsOfManySmallChunks() throws IOException {
+        final int rows = 200;
+        final int cols = 100;
+        final ByteBuffer bytes = ByteBuffer.allocate(MatrixFormat.HEADER_SIZE + 2 * rows * cols * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        bytes.put(MatrixFormat.header(MatrixFormat.TYPE_INT, MatrixFormat.FLAG_CHECKSUMS, rows, cols, Integer.BYTES));
+        for (int i = 0; i < rows * cols; i++)
+            bytes.putInt(i);
+        final CRC32 crc = new CRC32();
+        for (int i = 0; i < rows * cols; i++) {
+            crc.reset();
+            crc.update(bytes.array(), MatrixFormat.HEADER_SIZE + i * Integer.BYTES, Integer.BYTES);
+            bytes.putInt((int) crc.getValue());
+        }
+
+        final Matrix matrix = reader(bytes.array()).readMatrix();
+        assertEquals(rows * cols - 1, matrix.get(rows - 1, cols - 1));
+    }
+
+    @Test
+    public void shouldRejectMoreElementsThanFitInAnArray() throws IOException {
+        final byte[] bytes = write(new Matrix(new int[][] {{ 1 }}), false);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(8, 1 << 16).putInt(12, 1 << 16);
+
+        assertThrows(IOException.class, () -> reader(bytes).readMatrix());
+    }
+
+    @Test
+    public void shouldRejectPayloadLongerThanTheFile() throws IOException {
+        final byte[] bytes = write(new Matrix(new int[][] {{ 1, 2 }, { 3, 4 }}), true);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(8, 40000).putInt(12, 40000);
+        setChunkSize(bytes, Integer.BYTES);
+        final Path file = Files.createTempFile("matrix", ".bin");
+        try (FileChannel channel = FileChannel.open(Files.write(file, bytes))) {
+            assertThrows(IOException.class, () -> new MatrixReader(channel).readMatrix());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void shouldWriteAndReadLongAndDoubleMatrices() throws IOException {
+        final LongMatrix longs = new LongMatrix(new long[][] {{ 1L << 40, -1 }});
+        final DoubleMatrix doubles = new DoubleMatrix(new double[][] {{ 0.5 }, { Double.NaN }});
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final MatrixWriter writer = new MatrixWriter(Channels.newChannel(out), true);
+        writer.write(longs);
+        writer.write(doubles);
+
+        final MatrixReader reader = reader(out.toByteArray());
+        assertArrayEquals(longs.toArray(), reader.readLongMatrix().toArray());
+        assertArrayEquals(doubles.getColumn(0), reader.readDoubleMatrix().getColumn(0));
+    }
+
+    @Test
+    public void shouldWriteAndReadLongAndDoubleMatricesOverManyBuffers() throws IOException {
+        final LongMatrix longs = new LongMatrix(300, 500);
+        final DoubleMatrix doubles = new DoubleMatrix(300, 500);
+        for (int x = 0; x < 300; x++) {
+            for (int y = 0; y < 500; y++) {
+                longs.set(x, y, (long) x << 32 | y);
+                doubles.set(x, y, x + y / 1000.0);
+            }
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final MatrixWriter writer = new MatrixWriter(Channels.newChannel(out), true);
+        writer.write(longs);
+        writer.write(doubles);
+
+        final MatrixReader reader = reader(out.toByteArray());
+        assertArrayEquals(longs.toArray(), reader.readLongMatrix().toArray());
+        assertArrayEquals(doubles.getRow(299), reader.readDoubleMatrix().getRow(299));
+    }
+
+    @Test
+    public void shouldNotReadOtherElementType() throws IOException {
+        final byte[] bytes = write(new Matrix(new int[][] {{ 1 }}), false);
+        assertThrows(IOException.class, () -> reader(bytes).readLongMatrix());
+    }
+
+    @Test
+    public void shouldRejectTruncatedHeader() throws IOException {
+        final byte[] bytes = Arrays.copyOf(write(new Matrix(new int[][] {{ 1 }}), false), MatrixFormat.HEADER_SIZE - 1);
+        assertThrows(EOFException.class, () -> reader(bytes).readMatrix());
+    }
+
+    @Test
+    public void shouldRejectWrongMagic() throws IOException {
+        final byte[] bytes = write(new Matrix(new int[][] {{ 1 }}), false);
+        bytes[0] = 'X';
+        assertThrows(IOException.class, () -> reader(bytes).readMatrix());
+    }
+
+    @Test
+    public void shouldRejectUnknownElementType() throws IOException {
+        final byte[] bytes = write(new Matrix(new int[][] {{ 1 }}), false);
+        bytes[6] = 42;
+        assertThrows(IOException.class, () -> reader(bytes).readMatrix());
+    }
+
+    @Test
+    public void shouldMapWrittenFiles() throws IOException {
+        final Matrix matrix = new Matrix(new int[][] {{ 1, 2 }, { 3, 4 }});
+        final Path file = Files.createTempFile("matrix", ".bin");
+        try {
+            Files.write(file, write(matrix, true));
+            assertArrayEquals(matrix.toArray(), MappedMatrix.open(file, false).toMatrix().toArray());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static byte[] write(Matrix matrix, boolean checksums) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new MatrixWriter(Channels.newChannel(out), checksums).write(matrix);
+        return out.toByteArray();
+    }
+
+    private static void setChunkSize(byte[] bytes, int chunkSize) {
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(16, chunkSize);
+    }
+
+    private static MatrixReader reader(byte[] bytes) {
+        return new MatrixReader(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+}
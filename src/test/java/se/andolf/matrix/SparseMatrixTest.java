@@ -0,0 +1,83 @@
+package se.andolf.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SparseMatrixTest {
+
+    private static final int[][] VALUES1 = {{ 0, 3, 0 }, { 5, 0, 2 }, { 0, 0, 0 }};
+    private static final int[][] VALUES2 = {{ 3, 0, 0, 1 }, { 0, 0, -2, 0 }, { 4, 0, 0, -2 }};
+
+    @Test
+    public void shouldConvertToAndFromMatrix() {
+        final SparseMatrix sparse = SparseMatrix.of(new Matrix(VALUES1));
+        assertEquals(3, sparse.getNonZeros());
+        assertArrayEquals(VALUES1, sparse.toMatrix().toArray());
+    }
+
+    @Test
+    public void shouldGetCells() {
+        final SparseMatrix sparse = SparseMatrix.of(new Matrix(VALUES1));
+        assertEquals(3, sparse.get(0, 1));
+        assertEquals(0, sparse.get(0, 2));
+        assertEquals(2, sparse.get(1, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> sparse.get(3, 0));
+    }
+
+    @Test
+    public void shouldGetRowAndColumn() {
+        final SparseMatrix sparse = SparseMatrix.of(new Matrix(VALUES1));
+        assertArrayEquals(new int[] { 5, 0, 2 }, sparse.getRow(1));
+        assertArrayEquals(new int[] { 0, 0, 0 }, sparse.getRow(2));
+        assertArrayEquals(new int[] { 0, 5, 0 }, sparse.getColumn(0));
+        assertArrayEquals(new int[] { 0, 2, 0 }, sparse.getColumn(2));
+    }
+
+    @Test
+    public void shouldMultiplySparseWithDense() {
+        final Matrix expected = new Matrix(VALUES1).multiply(new Matrix(VALUES2));
+        final Matrix product = SparseMatrix.of(new Matrix(VALUES1)).multiply(new Matrix(VALUES2));
+        assertArrayEquals(expected.toArray(), product.toArray());
+    }
+
+    @Test
+    public void shouldMultiplyDenseWithSparse() {
+        final Matrix expected = new Matrix(VALUES1).multiply(new Matrix(VALUES2));
+        final Matrix product = new Matrix(VALUES1).multiply(SparseMatrix.of(new Matrix(VALUES2)));
+        assertArrayEquals(expected.toArray(), product.toArray());
+    }
+
+    @Test
+    public void shouldMultiplySparseWithSparse() {
+        final Matrix expected = new Matrix(VALUES1).multiply(new Matrix(VALUES2));
+        final SparseMatrix product = SparseMatrix.of(new Matrix(VALUES1)).multiply(SparseMatrix.of(new Matrix(VALUES2)));
+        assertArrayEquals(expected.toArray(), product.toMatrix().toArray());
+        assertArrayEquals(expected.getColumn(3), product.getColumn(3));
+    }
+
+    @Test
+    public void shouldDropCancelledCellsFromSparseProduct() {
+        final SparseMatrix sparse1 = SparseMatrix.of(new Matrix(new int[][] {{ 1, 1 }}));
+        final SparseMatrix sparse2 = SparseMatrix.of(new Matrix(new int[][] {{ 2 }, { -2 }}));
+        assertEquals(0, sparse1.multiply(sparse2).getNonZeros());
+    }
+
+    @Test
+    public void shouldRejectUnsortedColumnIndices() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SparseMatrix(1, 3, new int[] { 0, 2 }, new int[] { 2, 1 }, new int[] { 1, 1 }));
+    }
+
+    @Test
+    public void shouldRejectStoredZeros() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SparseMatrix(1, 3, new int[] { 0, 2 }, new int[] { 0, 2 }, new int[] { 1, 0 }));
+    }
+
+    @Test
+    public void shouldNotMultiplyMismatchedMatrices() {
+        final SparseMatrix sparse = SparseMatrix.of(new Matrix(VALUES1));
+        assertThrows(IllegalArgumentException.class, () -> sparse.multiply(new Matrix(VALUES1).row(0)));
+    }
+}
@@ -0,0 +1,58 @@
+package se.andolf.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+    Runs against the packaged multi-release jar, see the simd profile
+ */
+public class VectorizedMultiplicationIT {
+
+    @Test
+    public void shouldUseVectorKernel() {
+        assertTrue(VectorizedMultiplication.isAvailable());
+    }
+
+    @Test
+    public void shouldMatchScalarKernel() {
+        final int[][] shapes = {{ 1, 1, 1 }, { 7, 5, 3 }, { 300, 270, 259 }, { 64, 64, 64 }};
+        for (int[] shape : shapes) {
+            final Matrix a = MatrixFixtures.filled(shape[0], shape[1], 3);
+            final Matrix b = MatrixFixtures.filled(shape[1], shape[2], 5);
+            final Matrix expected = new Matrix(shape[0], shape[2]);
+            final Matrix actual = new Matrix(shape[0], shape[2]);
+
+            BlockedMultiplication.multiply(a, b, expected);
+            VectorizedMultiplication.multiply(a, b, actual);
+
+            assertArrayEquals(expected.toArray(), actual.toArray());
+        }
+    }
+
+    @Test
+    public void shouldMultiplyViews() {
+        final Matrix a = MatrixFixtures.filled(40, 50, 7).subMatrix(3, 4, 33, 41);
+        final Matrix b = MatrixFixtures.filled(60, 70, 11).subMatrix(5, 6, 41, 37);
+        final Matrix expected = new Matrix(33, 37);
+        final Matrix actual = new Matrix(33, 37);
+
+        BlockedMultiplication.multiply(a, b, expected);
+        VectorizedMultiplication.multiply(a, b, actual);
+
+        assertArrayEquals(expected.toArray(), actual.toArray());
+    }
+
+    @Test
+    public void shouldMultiplyStrassenLeavesWithVectorKernel() {
+        final Matrix a = MatrixFixtures.filled(100, 100, 3);
+        final Matrix b = MatrixFixtures.filled(100, 100, 5);
+        final Matrix expected = new Matrix(100, 100);
+        final Matrix actual = new Matrix(100, 100);
+
+        BlockedMultiplication.multiply(a, b, expected);
+        StrassenMultiplication.multiply(a, b, actual, 8);
+
+        assertArrayEquals(expected.toArray(), actual.toArray());
+    }
+}
@@ -0,0 +1,67 @@
+package se.andolf.tutorials.algorithms;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedIntArrayTest {
+
+    @Test
+    void shouldReadIntsInPlace() throws IOException {
+        var file = write(ByteOrder.BIG_ENDIAN, 1, -2, 3);
+        try {
+            var numbers = MappedIntArray.map(file, ByteOrder.BIG_ENDIAN);
+            assertEquals(3, numbers.length());
+            assertEquals(-2, numbers.get(1));
+            assertThrows(IndexOutOfBoundsException.class, () -> numbers.get(3));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void shouldFindPeaksInMappedFile() throws IOException {
+        var file = write(ByteOrder.LITTLE_ENDIAN, 1, 2, 3, 2, 3, 1);
+        try {
+            var numbers = MappedIntArray.map(file, ByteOrder.LITTLE_ENDIAN);
+            assertEquals(3, PeakFinder.straightForward(numbers));
+            assertEquals(3, PeakFinder.divideAndConquer(numbers));
+            assertEquals(2, PeakFinder.peakIndex(numbers));
+
+            var peaks = new ArrayList<Long>();
+            PeakFinder.findAllPeaks(numbers, (position, value) -> peaks.add(position));
+            assertEquals(List.of(2L, 4L), peaks);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void shouldFindNothingInEmptyFile() throws IOException {
+        var file = write(ByteOrder.LITTLE_ENDIAN);
+        try {
+            var numbers = MappedIntArray.map(file, ByteOrder.LITTLE_ENDIAN);
+            assertEquals(-1, PeakFinder.peakIndex(numbers));
+            assertEquals(-1, PeakFinder.straightForward(numbers));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static Path write(ByteOrder order, int... numbers) throws IOException {
+        var buffer = ByteBuffer.allocate(numbers.length * Integer.BYTES).order(order);
+        buffer.asIntBuffer().put(numbers);
+        var file = Files.createTempFile("numbers", ".bin");
+        Files.write(file, buffer.array());
+        return file;
+    }
+}
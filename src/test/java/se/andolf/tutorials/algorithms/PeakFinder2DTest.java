@@ -0,0 +1,71 @@
+package se.andolf.tutorials.algorithms;
+
+import org.junit.jupiter.api.Test;
+import se.andolf.matrix.Matrix;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PeakFinder2DTest {
+
+    @Test
+    void shouldTestDocAndReturnMinusOneIfEmptyMatrix() {
+        var matrix = new Matrix(0, 0);
+        assertArrayEquals(new int[] { -1, -1 }, PeakFinder2D.divideAndConquer(matrix));
+        assertArrayEquals(new int[] { -1, -1 }, PeakFinder2D.greedyAscent(matrix, 10));
+    }
+
+    @Test
+    void shouldTestDocWithSingleNumberMatrix() {
+        var matrix = new Matrix(new int[][] {{ 4 }});
+        assertArrayEquals(new int[] { 0, 0 }, PeakFinder2D.divideAndConquer(matrix));
+    }
+
+    @Test
+    void shouldTestDocAndFindPeakInColumnMaximumSide() {
+        var matrix = new Matrix(new int[][] {
+                { 10, 8, 10, 10 },
+                { 14, 13, 12, 11 },
+                { 15, 9, 11, 21 },
+                { 16, 17, 19, 20 }});
+        var peak = PeakFinder2D.divideAndConquer(matrix);
+        assertTrue(PeakFinder2D.isPeak(matrix, peak[0], peak[1]));
+    }
+
+    @Test
+    void shouldTestGreedyAscentAndClimbToPeak() {
+        var matrix = new Matrix(new int[][] {
+                { 1, 2, 3 },
+                { 2, 3, 4 },
+                { 3, 4, 9 }});
+        assertArrayEquals(new int[] { 2, 2 }, PeakFinder2D.greedyAscent(matrix, 10));
+    }
+
+    @Test
+    void shouldTestGreedyAscentAndFallBackWhenOutOfSteps() {
+        var matrix = new Matrix(new int[][] {
+                { 1, 2, 3, 4, 5 },
+                { 0, 0, 0, 0, 6 },
+                { 0, 0, 0, 0, 7 }});
+        var peak = PeakFinder2D.greedyAscent(matrix, 1);
+        assertTrue(PeakFinder2D.isPeak(matrix, peak[0], peak[1]));
+    }
+
+    @Test
+    void shouldFindPeaksInRandomMatrices() {
+        var random = new Random(42);
+        for (var i = 0; i < 200; i++) {
+            var matrix = new Matrix(1 + random.nextInt(20), 1 + random.nextInt(20));
+            for (var row = 0; row < matrix.getRowLength(); row++)
+                for (var col = 0; col < matrix.getColLength(); col++)
+                    matrix.set(row, col, random.nextInt(10));
+
+            var peak = PeakFinder2D.divideAndConquer(matrix);
+            assertTrue(PeakFinder2D.isPeak(matrix, peak[0], peak[1]));
+            peak = PeakFinder2D.greedyAscent(matrix, 5);
+            assertTrue(PeakFinder2D.isPeak(matrix, peak[0], peak[1]));
+        }
+    }
+}
@@ -2,7 +2,14 @@ package se.andolf.tutorials.algorithms;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.IntBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class PeakFinderTest {
 
@@ -153,4 +160,232 @@ class PeakFinderTest {
         assertEquals(9, maximum);
 
     }
+
+    @Test
+    void shouldFindMaxNumberInLargeArray() {
+        int[] numbers = new int[1_000_000];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = i % 1000;
+        }
+        numbers[765_432] = 5000;
+        final var maximum = PeakFinder.maximum(numbers);
+        assertEquals(5000, maximum);
+    }
+
+    @Test
+    void shouldReturnMinusOneAsMaximumOfEmptyArray() {
+        assertEquals(-1, PeakFinder.maximum(new int[0]));
+    }
+
+    @Test
+    void shouldFindAllPeaks() {
+        int[] numbers = {1,2,3,2,3,1};
+        assertArrayEquals(new int[] {2, 4}, PeakFinder.findAllPeaks(numbers).toArray());
+    }
+
+    @Test
+    void shouldFindAllPositionsOfPlateau() {
+        int[] numbers = {1,1,1,2,2,0,3};
+        assertArrayEquals(new int[] {0, 1, 3, 4, 6}, PeakFinder.findAllPeaks(numbers).toArray());
+    }
+
+    @Test
+    void shouldFindNoPeaksInEmptyArray() {
+        int[] numbers = {};
+        assertEquals(0, PeakFinder.findAllPeaks(numbers).size());
+    }
+
+    @Test
+    void shouldFindAllPeaksInParallel() {
+        var random = new Random(3);
+        int[] numbers = new int[PeakFinder.CHUNK_SIZE * 3 + 17];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = random.nextInt(5);
+        }
+        var pool = new ForkJoinPool(4);
+        try {
+            assertArrayEquals(PeakFinder.findAllPeaks(numbers).toArray(),
+                    PeakFinder.findAllPeaks(numbers, pool).toArray());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shouldCountChunksOfArraysCloseToMaxLength() {
+        assertEquals(0, PeakFinder.chunkCount(0));
+        assertEquals(1, PeakFinder.chunkCount(PeakFinder.CHUNK_SIZE));
+        assertEquals(2, PeakFinder.chunkCount(PeakFinder.CHUNK_SIZE + 1));
+        assertEquals(Integer.MAX_VALUE / PeakFinder.CHUNK_SIZE + 1, PeakFinder.chunkCount(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void shouldTellEmptyArrayFromPeakOfMinusOne() {
+        assertEquals(-1, PeakFinder.peakIndex(new int[0]));
+        assertEquals(0, PeakFinder.peakIndex(new int[] {-1}));
+    }
+
+    @Test
+    void shouldAgreeWithRecursiveDivideAndConquer() {
+        var random = new Random(11);
+        for (int n = 1; n < 200; n++) {
+            int[] numbers = new int[n];
+            for (int i = 0; i < n; i++) {
+                numbers[i] = random.nextInt(6);
+            }
+            var index = PeakFinder.peakIndex(numbers);
+            assertEquals(recursiveDivideAndConquer(numbers, 0, n - 1), numbers[index]);
+            assertEquals(numbers[index], PeakFinder.divideAndConquer(numbers));
+        }
+    }
+
+    @Test
+    void shouldAnswerBatchOfPeakQueries() {
+        int[] numbers = {1,3,2, 5, 1,2,3, 4,4};
+        int[] offsets = {0, 3, 4, 4, 7, 9};
+        int[] result = new int[5];
+        PeakFinder.peakIndices(numbers, offsets, result);
+        assertArrayEquals(new int[] {1, 0, -1, 2, 0}, result);
+
+        int[][] arrays = {{1,3,2}, {5}, {}, {1,2,3}, {4,4}};
+        int[] separate = new int[5];
+        PeakFinder.peakIndices(arrays, separate);
+        assertArrayEquals(result, separate);
+    }
+
+    @Test
+    void shouldAnswerBatchOfPeakQueriesInParallel() {
+        var random = new Random(5);
+        var queries = PeakFinder.BATCH_SIZE * 4 + 3;
+        int[] offsets = new int[queries + 1];
+        for (int i = 1; i <= queries; i++) {
+            offsets[i] = offsets[i - 1] + random.nextInt(20);
+        }
+        int[] numbers = new int[offsets[queries]];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = random.nextInt(100);
+        }
+        int[] expected = new int[queries];
+        int[] result = new int[queries];
+        PeakFinder.peakIndices(numbers, offsets, expected);
+        var pool = new ForkJoinPool(4);
+        try {
+            PeakFinder.peakIndices(numbers, offsets, result, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertArrayEquals(expected, result);
+    }
+
+    @Test
+    void shouldRejectTooSmallResult() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PeakFinder.peakIndices(new int[] {1, 2}, new int[] {0, 1, 2}, new int[1]));
+    }
+
+    @Test
+    void shouldFindPeaksInIntBuffer() {
+        var numbers = IntBuffer.wrap(new int[] {9, 1, 2, 3, 2, 3, 1});
+        numbers.position(1);
+        assertEquals(3, PeakFinder.straightForward(numbers));
+        assertEquals(3, PeakFinder.divideAndConquer(numbers));
+        assertEquals(2, PeakFinder.peakIndex(numbers));
+        assertArrayEquals(new int[] {2, 4}, PeakFinder.findAllPeaks(numbers).toArray());
+        assertEquals(1, numbers.position());
+    }
+
+    @Test
+    void shouldFindPeaksInLongArray() {
+        long[] numbers = {1, 1L << 40, 3, 2, 1L << 41, 1};
+        assertEquals(1L << 40, PeakFinder.straightForward(numbers));
+        assertEquals(1L << 41, PeakFinder.maximum(numbers));
+        assertEquals(1L << 40, PeakFinder.divideAndConquer(numbers));
+        assertArrayEquals(new int[] {1, 4}, PeakFinder.findAllPeaks(numbers).toArray());
+        assertEquals(-1, PeakFinder.divideAndConquer(new long[0]));
+    }
+
+    @Test
+    void shouldFindPeaksInShortArray() {
+        short[] numbers = {1, 2, 3, 2, 3, 1};
+        assertEquals(3, PeakFinder.straightForward(numbers));
+        assertEquals(3, PeakFinder.divideAndConquer(numbers));
+        assertEquals(3, PeakFinder.maximum(numbers));
+        assertArrayEquals(new int[] {2, 4}, PeakFinder.findAllPeaks(numbers).toArray());
+    }
+
+    @Test
+    void shouldFindPeaksInDoubleArray() {
+        double[] numbers = {0.5, 2.5, 1.5, 2.0, 1.0};
+        assertEquals(2.5, PeakFinder.straightForward(numbers));
+        assertEquals(2.0, PeakFinder.divideAndConquer(numbers));
+        assertEquals(2.5, PeakFinder.maximum(numbers));
+        assertArrayEquals(new int[] {1, 3}, PeakFinder.findAllPeaks(numbers).toArray());
+    }
+
+    @Test
+    void shouldMatchIntVersionForEveryPrimitive() {
+        final var random = new Random(7);
+        for (var n = 1; n < 200; n++) {
+            final var numbers = new int[n];
+            for (var i = 0; i < n; i++)
+                numbers[i] = random.nextInt(9) - 4;
+            final var longs = new long[n];
+            final var shorts = new short[n];
+            final var doubles = new double[n];
+            for (var i = 0; i < n; i++) {
+                longs[i] = numbers[i];
+                shorts[i] = (short) numbers[i];
+                doubles[i] = numbers[i];
+            }
+            final var straightForward = PeakFinder.straightForward(numbers);
+            final var divideAndConquer = PeakFinder.divideAndConquer(numbers);
+            final var maximum = PeakFinder.maximum(numbers);
+            final var allPeaks = PeakFinder.findAllPeaks(numbers).toArray();
+
+            assertEquals(straightForward, PeakFinder.straightForward(longs));
+            assertEquals(divideAndConquer, PeakFinder.divideAndConquer(longs));
+            assertEquals(maximum, PeakFinder.maximum(longs));
+            assertArrayEquals(allPeaks, PeakFinder.findAllPeaks(longs).toArray());
+
+            assertEquals(straightForward, PeakFinder.straightForward(shorts));
+            assertEquals(divideAndConquer, PeakFinder.divideAndConquer(shorts));
+            assertEquals(maximum, PeakFinder.maximum(shorts));
+            assertArrayEquals(allPeaks, PeakFinder.findAllPeaks(shorts).toArray());
+
+            assertEquals(straightForward, PeakFinder.straightForward(doubles));
+            assertEquals(divideAndConquer, PeakFinder.divideAndConquer(doubles));
+            assertEquals(maximum, PeakFinder.maximum(doubles));
+            assertArrayEquals(allPeaks, PeakFinder.findAllPeaks(doubles).toArray());
+        }
+    }
+
+    @Test
+    void shouldTreatNaNAsLowerThanAnyNumber() {
+        double[] numbers = {Double.NaN, 1.0, Double.NaN, Double.NaN, 0.5};
+        assertEquals(1.0, PeakFinder.straightForward(numbers));
+        assertEquals(1.0, PeakFinder.maximum(numbers));
+        assertArrayEquals(new int[] {1, 4}, PeakFinder.findAllPeaks(numbers).toArray());
+        assertEquals(1.0, PeakFinder.divideAndConquer(new double[] {Double.NaN, Double.NaN, Double.NaN, 1.0, Double.NaN}));
+        assertEquals(5.0, PeakFinder.divideAndConquer(new double[] {Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, 5.0}));
+    }
+
+    @Test
+    void shouldReturnNaNWhenThereIsNoPeak() {
+        assertTrue(Double.isNaN(PeakFinder.straightForward(new double[0])));
+        assertTrue(Double.isNaN(PeakFinder.divideAndConquer(new double[] {Double.NaN, Double.NaN})));
+        assertTrue(Double.isNaN(PeakFinder.maximum(new double[] {Double.NaN})));
+    }
+
+    private static int recursiveDivideAndConquer(int[] numbers, int start, int end) {
+        if (end - start == 0)
+            return numbers[start];
+        var middle = (start+end)/2;
+        if(numbers[middle] < numbers[middle+1]) {
+            return recursiveDivideAndConquer(numbers, middle+1, end);
+        } else if(middle != 0 && numbers[middle] < numbers[middle-1]){
+            return recursiveDivideAndConquer(numbers, start, middle-1);
+        } else {
+            return numbers[middle];
+        }
+    }
 }
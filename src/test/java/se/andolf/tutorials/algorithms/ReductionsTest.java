@@ -0,0 +1,69 @@
+package se.andolf.tutorials.algorithms;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReductionsTest {
+
+    @Test
+    void shouldFindMaximumAndMinimum() {
+        int[] numbers = {3, 7, 4, 9, 5, -2, 9};
+        assertEquals(9, Reductions.maximum(numbers));
+        assertEquals(-2, Reductions.minimum(numbers));
+    }
+
+    @Test
+    void shouldReturnLeftmostPositionOfBest() {
+        int[] numbers = {3, 9, 4, 9, -2, 5, -2};
+        assertEquals(1, Reductions.argMax(numbers));
+        assertEquals(4, Reductions.argMin(numbers));
+    }
+
+    @Test
+    void shouldReturnMinusOneForEmptyArray() {
+        int[] numbers = {};
+        assertEquals(-1, Reductions.argMax(numbers));
+        assertEquals(-1, Reductions.minimum(numbers));
+        assertArrayEquals(new int[0], Reductions.topK(numbers, 3));
+    }
+
+    @Test
+    void shouldFindTopK() {
+        int[] numbers = {3, 7, 4, 9, 5, -2, 9};
+        assertArrayEquals(new int[] {9, 9, 7}, Reductions.topK(numbers, 3));
+        assertArrayEquals(new int[] {9, 9, 7, 5, 4, 3, -2}, Reductions.topK(numbers, 10));
+    }
+
+    @Test
+    void shouldReduceInParallel() {
+        var random = new Random(7);
+        int[] numbers = new int[Reductions.THRESHOLD * 5 + 3];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = random.nextInt(1_000_000);
+        }
+        numbers[numbers.length - 1] = 1_000_000;
+        numbers[12] = 1_000_000;
+        var pool = new ForkJoinPool(4);
+        try {
+            assertEquals(12, Reductions.argMax(numbers, pool));
+            assertEquals(Reductions.argMin(numbers), Reductions.argMin(numbers, pool));
+            assertEquals(Reductions.minimum(numbers), Reductions.minimum(numbers, pool));
+
+            var sorted = numbers.clone();
+            Arrays.sort(sorted);
+            var expected = new int[10];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = sorted[sorted.length - 1 - i];
+            }
+            assertArrayEquals(expected, Reductions.topK(numbers, 10, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
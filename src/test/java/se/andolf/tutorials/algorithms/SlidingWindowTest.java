@@ -0,0 +1,81 @@
+package se.andolf.tutorials.algorithms;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SlidingWindowTest {
+
+    @Test
+    void shouldTrackMaximumOfWindow() {
+        var window = new SlidingWindow(3);
+        assertEquals(-1, window.max());
+
+        window.accept(1);
+        window.accept(5);
+        window.accept(2);
+        assertEquals(5, window.max());
+        assertEquals(1, window.maxPosition());
+        window.accept(3);
+        window.accept(1);
+        assertEquals(3, window.max());
+        assertEquals(3, window.size());
+    }
+
+    @Test
+    void shouldReportOldestMaximumOnTies() {
+        var window = new SlidingWindow(4);
+        window.accept(2);
+        window.accept(7);
+        window.accept(7);
+        assertEquals(1, window.maxPosition());
+    }
+
+    @Test
+    void shouldReportAndCountPeaks() {
+        var peaks = new ArrayList<Long>();
+        var window = new SlidingWindow(3, (position, value) -> peaks.add(position));
+        for (int number : new int[] {1, 3, 2, 1, 1, 0}) {
+            window.accept(number);
+        }
+        assertEquals(List.of(1L, 4L), peaks);
+        assertEquals(1, window.peakCount());
+    }
+
+    @Test
+    void shouldAgreeWithRecomputingEveryWindow() {
+        var random = new Random(13);
+        for (int size : new int[] {1, 2, 5, 16}) {
+            int[] numbers = new int[500];
+            for (int i = 0; i < numbers.length; i++) {
+                numbers[i] = random.nextInt(10);
+            }
+            var all = PeakFinder.findAllPeaks(numbers).toArray();
+            var window = new SlidingWindow(size);
+            for (int i = 0; i < numbers.length; i++) {
+                window.accept(numbers[i]);
+                var from = Math.max(0, i - size + 1);
+                var expected = Reductions.argMax(Arrays.copyOfRange(numbers, from, i + 1)) + from;
+                assertEquals(expected, window.maxPosition());
+
+                var peaks = 0;
+                for (int peak : all) {
+                    if (peak >= from && peak < i)
+                        peaks++;
+                }
+                assertEquals(peaks, window.peakCount());
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectEmptyWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindow(0));
+    }
+}
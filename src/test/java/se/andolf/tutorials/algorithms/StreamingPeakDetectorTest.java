@@ -0,0 +1,65 @@
+package se.andolf.tutorials.algorithms;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingPeakDetectorTest {
+
+    @Test
+    void shouldReportPeaksAsTheyAreConfirmed() {
+        var peaks = new ArrayList<Long>();
+        var detector = new StreamingPeakDetector((position, value) -> peaks.add(position));
+
+        detector.accept(1);
+        detector.accept(3);
+        assertEquals(List.of(), peaks);
+        detector.accept(2);
+        assertEquals(List.of(1L), peaks);
+        detector.accept(5);
+        detector.complete();
+        assertEquals(List.of(1L, 3L), peaks);
+    }
+
+    @Test
+    void shouldReportEveryPositionOfPlateau() {
+        assertEquals(List.of(1L, 2L), peaks(1, 2, 2, 1));
+        assertEquals(List.of(0L, 1L, 2L), peaks(1, 1, 1));
+    }
+
+    @Test
+    void shouldReportEdges() {
+        assertEquals(List.of(0L), peaks(3, 2, 1));
+        assertEquals(List.of(2L), peaks(1, 2, 3));
+        assertEquals(List.of(0L), peaks(2));
+        assertEquals(List.of(), peaks());
+    }
+
+    @Test
+    void shouldReportValues() {
+        var values = new ArrayList<Integer>();
+        StreamingPeakDetector.detect(IntStream.of(1, 2, 3, 2, 3, 1), (position, value) -> values.add(value));
+        assertEquals(List.of(3, 3), values);
+    }
+
+    @Test
+    void shouldAgreeWithStraightForwardOnFirstPeak() {
+        int[] numbers = {1, 2, 3, 2, 3, 1};
+        var first = new long[] { -1 };
+        StreamingPeakDetector.detect(IntStream.of(numbers), (position, value) -> {
+            if (first[0] < 0)
+                first[0] = position;
+        });
+        assertEquals(PeakFinder.straightForward(numbers), numbers[(int) first[0]]);
+    }
+
+    private static List<Long> peaks(int... numbers) {
+        var peaks = new ArrayList<Long>();
+        StreamingPeakDetector.detect(IntStream.of(numbers), (position, value) -> peaks.add(position));
+        return peaks;
+    }
+}
@@ -0,0 +1,169 @@
+package se.andolf.tutorials.monads;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyTryTests {
+
+    @Test
+    void shouldNotRunUntilTerminalOperation() {
+        final AtomicInteger calls = new AtomicInteger();
+        final LazyTry<Integer> lazy = LazyTry.ofThrowable(() -> {
+            calls.incrementAndGet();
+            return 1;
+        }).map(n -> n + 1);
+
+        assertEquals(0, calls.get());
+        assertEquals(Integer.valueOf(2), lazy.orElse(0));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldRunTheWholeChain() throws Throwable {
+        final String value = LazyTry.ofThrowable(() -> Integer.valueOf("10"))
+                .map(n -> n * 2)
+                .flatMap(n -> Try.ofThrowable(() -> n / 4))
+                .filter(n -> n == 5)
+                .map(String::valueOf)
+                .get();
+        assertEquals("5", value);
+    }
+
+    @Test
+    void shouldRunLongChains() throws Throwable {
+        LazyTry<Integer> lazy = LazyTry.ofThrowable(() -> 0);
+        for (int i = 0; i < 100; i++)
+            lazy = lazy.map(n -> n + 1);
+        assertEquals(Integer.valueOf(100), lazy.get());
+    }
+
+    @Test
+    void shouldSkipRemainingStepsAfterFailure() {
+        final AtomicInteger calls = new AtomicInteger();
+        final LazyTry<Integer> lazy = LazyTry.ofThrowable(() -> Integer.valueOf("a"))
+                .map(n -> calls.incrementAndGet());
+
+        assertThrows(NumberFormatException.class, lazy::get);
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void shouldFailFromFlatMap() {
+        final LazyTry<Integer> lazy = LazyTry.ofThrowable(() -> 1)
+                .flatMap(n -> Try.ofThrowable(() -> Integer.valueOf("T")));
+        assertFalse(lazy.isSuccessful());
+        assertThrows(NumberFormatException.class, lazy::get);
+    }
+
+    @Test
+    void shouldFailWhenFilterDoesNotMatch() {
+        final LazyTry<Integer> lazy = LazyTry.ofThrowable(() -> 1).filter(n -> n > 1);
+        assertThrows(NoSuchElementException.class, lazy::get);
+        assertFalse(lazy.toOptional().isPresent());
+    }
+
+    @Test
+    void shouldEvaluateOnlyOnce() {
+        final AtomicInteger calls = new AtomicInteger();
+        final LazyTry<Integer> lazy = LazyTry.ofThrowable(calls::incrementAndGet);
+        lazy.toTry();
+        lazy.toOptional();
+        assertEquals(1, calls.get());
+        assertEquals(Integer.valueOf(2), lazy.map(n -> n + 1).orElse(0));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldNotChangePipelineWhenBranching() throws Throwable {
+        final AtomicInteger calls = new AtomicInteger();
+        final LazyTry<Integer> numbers = LazyTry.ofThrowable(() -> {
+            calls.incrementAndGet();
+            return 10;
+        }).map(n -> n + 1);
+        final LazyTry<String> text = numbers.map(String::valueOf);
+        final LazyTry<Integer> doubled = numbers.map(n -> n * 2);
+
+        assertEquals("11", text.get());
+        assertEquals(Integer.valueOf(22), doubled.get());
+        assertEquals(Integer.valueOf(11), numbers.get());
+        assertEquals("11!", numbers.map(n -> n + "!").get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldRunFailingSourceOnceForAllBranches() {
+        final AtomicInteger calls = new AtomicInteger();
+        final LazyTry<Integer> numbers = LazyTry.ofThrowable(() -> Integer.valueOf("x" + calls.incrementAndGet()));
+
+        assertThrows(NumberFormatException.class, numbers.map(n -> n + 1)::get);
+        assertThrows(NumberFormatException.class, numbers.filter(n -> n > 0)::get);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldApplyPipelineToManyValues() {
+        final LazyTry.Pipeline<String, Integer> pipeline = LazyTry.<String>pipeline()
+                .map(Integer::valueOf)
+                .map(n -> n * 2)
+                .filter(n -> n % 3 != 0)
+                .flatMap(n -> Try.ofThrowable(() -> 100 / (n - 8)));
+
+        assertEquals(Integer.valueOf(50), pipeline.orElse("5", 0));
+        assertEquals(Integer.valueOf(0), pipeline.orElse("3", 0));
+        assertEquals(Integer.valueOf(0), pipeline.orElse("a", 0));
+        assertThrows(ArithmeticException.class, pipeline.apply("4")::get);
+        assertThrows(NumberFormatException.class, pipeline.apply("a")::get);
+        assertThrows(NoSuchElementException.class, pipeline.apply("3")::get);
+    }
+
+    @Test
+    void shouldNotChangePipelineWhenAddingSteps() throws Throwable {
+        final LazyTry.Pipeline<Integer, Integer> base = LazyTry.<Integer>pipeline().map(n -> n + 1);
+        final LazyTry.Pipeline<Integer, Integer> doubled = base.map(n -> n * 2);
+        final LazyTry.Pipeline<Integer, String> text = base.map(n -> "#" + n);
+
+        assertEquals(Integer.valueOf(2), base.apply(1).get());
+        assertEquals(Integer.valueOf(4), doubled.apply(1).get());
+        assertEquals("#2", text.apply(1).get());
+        assertEquals("#2", text.ofThrowable(() -> 1).get());
+    }
+
+    @Test
+    void shouldRunSourceOnceForBranchesOnSeveralThreads() throws InterruptedException {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final LazyTry<Integer> source = LazyTry.ofThrowable(() -> {
+            calls.incrementAndGet();
+            while (release.getCount() > 0)
+                Thread.onSpinWait();
+            return 1;
+        });
+        final List<LazyTry<Integer>> branches = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final int step = i;
+            branches.add(source.map(n -> n + step));
+        }
+        final int[] results = new int[branches.size()];
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < branches.size(); i++) {
+            final int branch = i;
+            final Thread thread = new Thread(() -> results[branch] = branches.get(branch).orElse(-1));
+            thread.start();
+            threads.add(thread);
+        }
+        release.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(1, calls.get());
+        for (int i = 0; i < results.length; i++)
+            assertEquals(1 + i, results[i]);
+    }
+}
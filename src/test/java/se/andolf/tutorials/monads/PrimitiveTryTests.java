@@ -0,0 +1,104 @@
+package se.andolf.tutorials.monads;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimitiveTryTests {
+
+    @Test
+    void successfulIntTryWithMapping() throws Throwable {
+        final int value = IntTry.ofThrowable(() -> Integer.parseInt("21"))
+                .map(x -> x * 2)
+                .getAsInt();
+        assertEquals(42, value);
+    }
+
+    @Test
+    void failedIntTryKeepsTheCause() {
+        final AtomicInteger calls = new AtomicInteger();
+        final IntTry t = IntTry.ofThrowable(() -> Integer.parseInt("a"))
+                .map(calls::addAndGet)
+                .flatMap(x -> IntTry.successful(x + 1));
+
+        assertFalse(t.isSuccessful());
+        assertEquals(0, calls.get());
+        assertEquals(5, t.orElse(5));
+        assertFalse(t.toOptional().isPresent());
+        assertThrows(NumberFormatException.class, t::getAsInt);
+    }
+
+    @Test
+    void failedIntTryWithFlatMap() {
+        final IntTry t = IntTry.successful(1).flatMap(x -> IntTry.ofThrowable(() -> Integer.parseInt("T")));
+        assertThrows(NumberFormatException.class, t::getAsInt);
+    }
+
+    @Test
+    void intTryFilter() {
+        assertEquals(2, IntTry.successful(2).filter(x -> x % 2 == 0).orElse(0));
+        assertThrows(NoSuchElementException.class, IntTry.successful(3).filter(x -> x % 2 == 0)::getAsInt);
+    }
+
+    @Test
+    void intTryConvertsToAndFromTry() throws Throwable {
+        assertEquals(Integer.valueOf(3), IntTry.successful(3).toTry().get());
+        assertEquals(3, IntTry.fromTry(Try.ofThrowable(() -> 3)).getAsInt());
+        assertThrows(NumberFormatException.class, IntTry.fromTry(Try.ofThrowable(() -> Integer.valueOf("a")))::getAsInt);
+        assertThrows(NullPointerException.class, IntTry.fromTry(Try.successful(null))::getAsInt);
+        assertEquals("3", IntTry.successful(3).mapToObj(String::valueOf).get());
+    }
+
+    @Test
+    void longTry() throws Throwable {
+        final LongTry t = LongTry.ofThrowable(() -> Long.parseLong("4000000000")).map(x -> x + 1);
+        assertEquals(4_000_000_001L, t.getAsLong());
+        assertEquals(Long.valueOf(4_000_000_001L), t.toTry().get());
+        assertEquals(-1L, LongTry.ofThrowable(() -> Long.parseLong("x")).orElse(-1L));
+    }
+
+    @Test
+    void doubleTry() throws Throwable {
+        final DoubleTry t = DoubleTry.ofThrowable(() -> Double.parseDouble("1.5")).map(x -> x * 2);
+        assertEquals(3.0, t.getAsDouble());
+        assertEquals(Double.valueOf(3.0), t.toTry().get());
+        assertFalse(DoubleTry.ofThrowable(() -> Double.parseDouble("x")).filter(x -> x > 0).isSuccessful());
+    }
+
+    @Test
+    void shouldRunCallbacks() {
+        final AtomicInteger success = new AtomicInteger();
+        final AtomicInteger failure = new AtomicInteger();
+        IntTry.successful(7).onSuccess(success::set).onFailure(e -> {
+            failure.incrementAndGet();
+            return null;
+        });
+        IntTry.failure(new IllegalStateException()).onSuccess(success::set).onFailure(e -> {
+            failure.incrementAndGet();
+            return null;
+        });
+        assertEquals(7, success.get());
+        assertEquals(1, failure.get());
+    }
+
+    @Test
+    void shouldRethrowFromCallbacks() {
+        assertThrows(IOException.class, () -> LongTry.successful(1L).onSuccess(x -> {
+            throw new IOException();
+        }));
+        assertThrows(UncheckedIOException.class, () -> DoubleTry.failure(new IllegalStateException()).onFailure(e -> {
+            throw new UncheckedIOException(new IOException(e));
+        }));
+    }
+
+    @Test
+    void shouldRejectNullCallbacks() {
+        assertThrows(NullPointerException.class, () -> IntTry.failure(new IllegalStateException()).onSuccess(null));
+        assertThrows(NullPointerException.class, () -> LongTry.successful(1L).onFailure(null));
+    }
+}
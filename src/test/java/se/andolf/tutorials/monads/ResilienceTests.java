@@ -0,0 +1,293 @@
+package se.andolf.tutorials.monads;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilienceTests {
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private Retry retry(int maxAttempts) {
+        return Retry.of(maxAttempts, scheduler)
+                .withExecutor(scheduler)
+                .withBackoff(Duration.ofMillis(1), Duration.ofMillis(5), 2);
+    }
+
+    @Test
+    void shouldRetryUntilSuccess() throws Throwable {
+        final AtomicInteger calls = new AtomicInteger();
+        final Retry retry = retry(5);
+        final int value = retry.execute(() -> {
+            if (calls.incrementAndGet() < 3)
+                throw new IllegalStateException();
+            return 42;
+        }).toTry().get();
+
+        assertEquals(42, value);
+        assertEquals(3, calls.get());
+        assertEquals(3, retry.getMetrics().getAttempts());
+        assertEquals(2, retry.getMetrics().getFailures());
+        assertEquals(2, retry.getMetrics().getRetries());
+        assertEquals(1, retry.getMetrics().getSuccesses());
+        assertEquals(3, retry.getMetrics().getLatency().getCount());
+    }
+
+    @Test
+    void shouldFailWithLastCauseWhenAttemptsRunOut() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Try<Integer> result = retry(3).execute(() -> {
+            calls.incrementAndGet();
+            return Integer.valueOf("a");
+        }).toTry();
+
+        assertThrows(NumberFormatException.class, result::get);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void shouldNotRetryWhenPredicateSaysNo() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Try<Integer> result = retry(3)
+                .retryOn(e -> !(e instanceof NumberFormatException))
+                .execute(() -> {
+                    calls.incrementAndGet();
+                    return Integer.valueOf("a");
+                }).toTry();
+
+        assertThrows(NumberFormatException.class, result::get);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldFailWhenExecutorRejectsLaterAttempts() {
+        final ExecutorService attempts = Executors.newSingleThreadExecutor();
+        final Retry retry = retry(3).withExecutor(attempts);
+        final TryFuture<Integer> future = retry.execute(() -> {
+            attempts.shutdown();
+            throw new IllegalStateException();
+        });
+
+        final Try<Integer> result = assertTimeoutPreemptively(Duration.ofSeconds(5), future::toTry);
+        assertThrows(RejectedExecutionException.class, result::get);
+        assertEquals(3, retry.getMetrics().getAttempts());
+    }
+
+    @Test
+    void shouldTimeOutAndInterruptEachAttemptOnDefaultExecutor() throws InterruptedException {
+        final CountDownLatch interrupted = new CountDownLatch(2);
+        final Try<Integer> result = Retry.of(2, scheduler)
+                .withBackoff(Duration.ofMillis(1), Duration.ofMillis(5), 2)
+                .withAttemptTimeout(Duration.ofMillis(20))
+                .execute(() -> {
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return 1;
+                }).toTry();
+
+        assertThrows(TimeoutException.class, result::get);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldInterruptRunningAttemptWhenCancelledDuringZeroDelayRetry() throws InterruptedException {
+        final Retry retry = Retry.of(2, scheduler)
+                .withExecutor(scheduler)
+                .withBackoff(Duration.ZERO, Duration.ZERO, 1);
+        for (int i = 0; i < 50; i++) {
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch interrupted = new CountDownLatch(1);
+            final AtomicInteger attempts = new AtomicInteger();
+            final TryFuture<Integer> future = retry.execute(() -> {
+                if (attempts.incrementAndGet() == 1)
+                    throw new IllegalStateException();
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return 1;
+            });
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            future.cancel();
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void shouldGrowDelayUpToMaxWithJitter() {
+        final Retry retry = Retry.of(10, scheduler).withBackoff(Duration.ofMillis(100), Duration.ofSeconds(1), 2);
+        final Retry noJitter = retry.withJitter(0);
+
+        assertEquals(Duration.ofMillis(100).toNanos(), noJitter.delayNanos(1));
+        assertEquals(Duration.ofMillis(400).toNanos(), noJitter.delayNanos(3));
+        assertEquals(Duration.ofSeconds(1).toNanos(), noJitter.delayNanos(9));
+        for (int i = 0; i < 100; i++) {
+            final long delay = retry.delayNanos(2);
+            assertTrue(delay > Duration.ofMillis(100).toNanos() && delay <= Duration.ofMillis(200).toNanos());
+        }
+    }
+
+    @Test
+    void circuitBreakerShouldOpenAndRecover() throws Throwable {
+        final AtomicLong clock = new AtomicLong();
+        final CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(1), clock::get);
+
+        assertFalse(breaker.call(() -> Integer.valueOf("a")).isSuccessful());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertFalse(breaker.call(() -> Integer.valueOf("a")).isSuccessful());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        final AtomicInteger calls = new AtomicInteger();
+        assertThrows(RejectedExecutionException.class, breaker.call(calls::incrementAndGet)::get);
+        assertEquals(0, calls.get());
+        assertEquals(1, breaker.getMetrics().getRejections());
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        final long trial = breaker.tryAcquirePermission();
+        assertNotEquals(CircuitBreaker.NO_PERMISSION, trial);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.NO_PERMISSION, breaker.tryAcquirePermission());
+        breaker.onSuccess(trial);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(Integer.valueOf(1), breaker.call(calls::incrementAndGet).get());
+    }
+
+    @Test
+    void circuitBreakerShouldReopenWhenTrialFails() {
+        final AtomicLong clock = new AtomicLong();
+        final CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(1), clock::get);
+        breaker.onFailure(breaker.tryAcquirePermission());
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertFalse(breaker.call(() -> Integer.valueOf("a")).isSuccessful());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.NO_PERMISSION, breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void circuitBreakerShouldGiveUpOnAbandonedTrial() {
+        final AtomicLong clock = new AtomicLong();
+        final CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(1), clock::get);
+        breaker.onFailure(breaker.tryAcquirePermission());
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        final long abandoned = breaker.tryAcquirePermission();
+        assertNotEquals(CircuitBreaker.NO_PERMISSION, abandoned);
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos() - 1);
+        assertEquals(CircuitBreaker.NO_PERMISSION, breaker.tryAcquirePermission());
+
+        clock.incrementAndGet();
+        final long trial = breaker.tryAcquirePermission();
+        assertNotEquals(CircuitBreaker.NO_PERMISSION, trial);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.NO_PERMISSION, breaker.tryAcquirePermission());
+
+        /* The abandoned trial reporting back late doesn't decide in place of the new one */
+        breaker.onSuccess(abandoned);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(trial);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void circuitBreakerShouldRequirePositiveOpenDuration() {
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(1, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(1, Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    void successShouldResetConsecutiveFailures() {
+        final CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(1));
+        breaker.onFailure(breaker.tryAcquirePermission());
+        breaker.onSuccess(breaker.tryAcquirePermission());
+        breaker.onFailure(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void circuitBreakerShouldIgnoreOutcomesOfEarlierGenerations() {
+        final AtomicLong clock = new AtomicLong();
+        final CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(1), clock::get);
+        final long slowSuccess = breaker.tryAcquirePermission();
+        final long slowFailure = breaker.tryAcquirePermission();
+        breaker.onFailure(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        final long trial = breaker.tryAcquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        /* Calls let through while closed finish during the trial */
+        breaker.onSuccess(slowSuccess);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onFailure(slowFailure);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onFailure(trial);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        breaker.onSuccess(slowSuccess);
+        breaker.onSuccess(trial);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void bulkheadShouldRejectWhenFull() throws Throwable {
+        final Bulkhead bulkhead = new Bulkhead(1);
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final TryFuture<Integer> first = TryFuture.ofThrowable(bulkhead.decorate(() -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        }), scheduler);
+        running.await();
+
+        assertThrows(RejectedExecutionException.class, bulkhead.call(() -> 2)::get);
+        release.countDown();
+        assertEquals(Integer.valueOf(1), first.toTry().get());
+        assertEquals(1, bulkhead.getAvailablePermits());
+        assertEquals(Integer.valueOf(3), bulkhead.call(() -> 3).get());
+        assertEquals(1, bulkhead.getMetrics().getRejections());
+    }
+
+    @Test
+    void histogramShouldReportBucketUpperBounds() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+        for (int i = 0; i < 99; i++)
+            histogram.record(100);
+        histogram.record(1_000_000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(127, histogram.getPercentile(50));
+        assertEquals(127, histogram.getPercentile(99));
+        assertEquals((1L << 20) - 1, histogram.getPercentile(100));
+    }
+}
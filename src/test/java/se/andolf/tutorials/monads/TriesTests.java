@@ -0,0 +1,130 @@
+package se.andolf.tutorials.monads;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static se.andolf.tutorials.monads.Tries.Mode.COLLECT_FAILURES;
+import static se.andolf.tutorials.monads.Tries.Mode.FAIL_FAST;
+
+class TriesTests {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldSequenceSuccesses() throws Throwable {
+        final List<Integer> values = Tries.<Integer>sequence(Arrays.asList(Try.successful(1), Try.successful(2))).get();
+        assertEquals(Arrays.asList(1, 2), values);
+    }
+
+    @Test
+    void shouldFailWithFirstFailureWhenSequencing() {
+        final Try<List<Integer>> result = Tries.sequence(Arrays.asList(
+                Try.successful(1),
+                Try.<Integer>failure(new IllegalStateException()),
+                Try.<Integer>failure(new IllegalArgumentException())));
+        assertThrows(IllegalStateException.class, result::get);
+    }
+
+    @Test
+    void shouldCollectAllFailures() {
+        final Try<List<Integer>> result = Tries.ofAll(Arrays.<Supplier<Integer>>asList(
+                () -> Integer.valueOf("a"),
+                () -> 2,
+                () -> { throw new IllegalStateException(); }), COLLECT_FAILURES);
+
+        final MultipleFailuresException e = assertThrows(MultipleFailuresException.class, result::get);
+        assertEquals(2, e.getFailures().size());
+        assertTrue(e.getFailures().get(0) instanceof NumberFormatException);
+        assertTrue(e.getFailures().get(1) instanceof IllegalStateException);
+        assertEquals(2, e.getSuppressed().length);
+    }
+
+    @Test
+    void shouldCollectSingleFailure() {
+        final Try<List<Integer>> result = Tries.ofAll(Arrays.<Supplier<Integer>>asList(
+                () -> 1,
+                () -> Integer.valueOf("a")), COLLECT_FAILURES);
+
+        final MultipleFailuresException e = assertThrows(MultipleFailuresException.class, result::get);
+        assertEquals(1, e.getFailures().size());
+        assertEquals("1 of 2 computations failed", e.getMessage());
+    }
+
+    @Test
+    void shouldKeepFailuresWhenCallerChangesItsList() {
+        final List<Throwable> failures = new ArrayList<>(List.of(new IllegalStateException()));
+        final MultipleFailuresException e = new MultipleFailuresException(failures, 2);
+        failures.add(new IllegalArgumentException());
+
+        assertEquals(1, e.getFailures().size());
+        assertEquals(1, e.getSuppressed().length);
+    }
+
+    @Test
+    void shouldStopAtFirstFailure() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Try<List<Integer>> result = Tries.traverse(Arrays.asList("1", "a", "3"), s -> {
+            calls.incrementAndGet();
+            return Integer.valueOf(s);
+        }, FAIL_FAST);
+
+        assertThrows(NumberFormatException.class, result::get);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void shouldTraverseInParallelInOrder() throws Throwable {
+        final List<Integer> values = Tries.traverse(Arrays.asList("1", "2", "3", "4", "5"), Integer::valueOf, FAIL_FAST, executor).get();
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), values);
+    }
+
+    @Test
+    void shouldCollectAllFailuresInParallel() {
+        final Try<List<Integer>> result = Tries.traverse(Arrays.asList("1", "a", "3", "b"), Integer::valueOf, COLLECT_FAILURES, executor);
+        final MultipleFailuresException e = assertThrows(MultipleFailuresException.class, result::get);
+        assertEquals(2, e.getFailures().size());
+    }
+
+    @Test
+    void shouldCancelRemainingWorkOnFailureInParallel() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Try<List<Integer>> result = Tries.ofAll(Arrays.<Supplier<Integer>>asList(
+                () -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return 1;
+                },
+                () -> {
+                    try {
+                        started.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IllegalStateException();
+                }), FAIL_FAST, executor);
+
+        assertThrows(IllegalStateException.class, result::get);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,256 @@
+package se.andolf.tutorials.monads;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TryFutureTests {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void successfulTryFuture() throws Throwable {
+        final int value = TryFuture.ofThrowable(() -> Integer.valueOf("1"), executor).toTry().get();
+        assertEquals(1, value);
+    }
+
+    @Test
+    void successfulTryFutureOnDefaultExecutor() throws Throwable {
+        final int value = TryFuture.ofThrowable(() -> Integer.valueOf("1"))
+                .map(integer -> integer + 1)
+                .toTry()
+                .get();
+        assertEquals(2, value);
+    }
+
+    @Test
+    void successfulTryFutureWithFlatMap() throws Throwable {
+        final int value = TryFuture.ofThrowable(() -> Integer.valueOf("10"), executor)
+                .flatMap(n -> TryFuture.ofThrowable(() -> n / 2, executor))
+                .toTry()
+                .get();
+        assertEquals(5, value);
+    }
+
+    @Test
+    void failedTryFutureKeepsTheOriginalException() {
+        final Try<Integer> result = TryFuture.ofThrowable(() -> Integer.valueOf("a"), executor)
+                .map(integer -> integer + 1)
+                .toTry();
+        assertFalse(result.isSuccessful());
+        assertThrows(NumberFormatException.class, result::get);
+    }
+
+    @Test
+    void failedTryFutureWithFlatMap() {
+        final Try<Integer> result = TryFuture.ofThrowable(() -> 1, executor)
+                .flatMap(n -> TryFuture.ofThrowable(() -> Integer.valueOf("T"), executor))
+                .toTry();
+        assertThrows(NumberFormatException.class, result::get);
+    }
+
+    @Test
+    void shouldFailWhenExecutorRejects() {
+        executor.shutdown();
+        final Try<Integer> result = TryFuture.ofThrowable(() -> 1, executor).map(n -> n + 1).toTry();
+        assertThrows(RejectedExecutionException.class, result::get);
+    }
+
+    @Test
+    void filterFailsWhenPredicateDoesNotMatch() {
+        final Try<Integer> result = TryFuture.ofThrowable(() -> 5, executor)
+                .filter(n -> n > 10)
+                .toTry();
+        assertThrows(NoSuchElementException.class, result::get);
+    }
+
+    @Test
+    void shouldRunCallbacks() {
+        final AtomicReference<Integer> success = new AtomicReference<>();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        TryFuture.ofThrowable(() -> 5, executor).onSuccess(success::set).toTry();
+        TryFuture.ofThrowable(() -> Integer.valueOf("T"), executor).onFailure(e -> {
+            failure.set(e);
+            return null;
+        }).toTry();
+
+        assertEquals(Integer.valueOf(5), success.get());
+        assertTrue(failure.get() instanceof NumberFormatException);
+    }
+
+    @Test
+    void shouldFailWhenOnSuccessThrows() {
+        final Try<Integer> result = TryFuture.ofThrowable(() -> 5, executor)
+                .onSuccess(n -> { throw new IllegalStateException(); })
+                .toTry();
+        assertThrows(IllegalStateException.class, result::get);
+    }
+
+    @Test
+    void shouldFailWithWhatOnFailureThrows() {
+        final Try<Integer> kept = TryFuture.ofThrowable(() -> Integer.valueOf("T"), executor)
+                .onFailure(e -> null)
+                .toTry();
+        final Try<Integer> replaced = TryFuture.ofThrowable(() -> Integer.valueOf("T"), executor)
+                .onFailure(e -> { throw new IllegalStateException(e); })
+                .toTry();
+
+        assertThrows(NumberFormatException.class, kept::get);
+        assertThrows(IllegalStateException.class, replaced::get);
+    }
+
+    @Test
+    void shouldTimeOutAndInterruptTheComputation() throws InterruptedException {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Try<Integer> result = TryFuture.ofThrowable(() -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return 1;
+        }, executor).withTimeout(Duration.ofMillis(50)).toTry();
+
+        assertThrows(TimeoutException.class, result::get);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldInterruptOnTimeoutOnDefaultExecutor() throws InterruptedException {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Try<Integer> result = TryFuture.ofThrowable(() -> sleepUntilInterrupted(interrupted))
+                .withTimeout(Duration.ofMillis(50))
+                .toTry();
+
+        assertThrows(TimeoutException.class, result::get);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldInterruptOnCancelOnCommonPool() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final TryFuture<Integer> future = TryFuture.ofThrowable(() -> {
+            started.countDown();
+            return sleepUntilInterrupted(interrupted);
+        }, ForkJoinPool.commonPool());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(future.cancel());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertThrows(CancellationException.class, future.toTry()::get);
+    }
+
+    @Test
+    void shouldNotLeaveTheInterruptOfACancelOnThePooledThread() throws Throwable {
+        /* A ThreadPoolExecutor clears interrupts between tasks by itself, a ForkJoinPool doesn't */
+        final ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final TryFuture<Integer> ignoring = TryFuture.ofThrowable(() -> {
+                started.countDown();
+                while (release.getCount() > 0)
+                    Thread.onSpinWait();
+                return 1;
+            }, single);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            ignoring.cancel();
+            release.countDown();
+
+            final boolean interrupted = TryFuture.ofThrowable(() -> Thread.currentThread().isInterrupted(), single)
+                    .toTry()
+                    .get();
+            assertFalse(interrupted);
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    private static int sleepUntilInterrupted(CountDownLatch interrupted) {
+        try {
+            Thread.sleep(10_000);
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+        }
+        return 1;
+    }
+
+    @Test
+    void shouldCancel() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final TryFuture<Integer> future = TryFuture.ofThrowable(() -> {
+            started.countDown();
+            return sleepUntilInterrupted(interrupted);
+        }, executor);
+        final TryFuture<Integer> mapped = future.map(n -> n + 1);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(future.cancel());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertThrows(CancellationException.class, future.toTry()::get);
+        assertThrows(CancellationException.class, mapped.toTry()::get);
+    }
+
+    @Test
+    void shouldOnlyCancelOwnStage() throws Throwable {
+        final CountDownLatch release = new CountDownLatch(1);
+        final TryFuture<Integer> future = TryFuture.ofThrowable(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        }, executor);
+        final TryFuture<Integer> cancelled = future.map(n -> n + 1);
+        final TryFuture<Integer> timedOut = future.map(n -> n + 2).withTimeout(Duration.ofMillis(20));
+        final TryFuture<Integer> sibling = future.map(n -> n + 3);
+
+        assertTrue(cancelled.cancel());
+        assertThrows(TimeoutException.class, timedOut.toTry()::get);
+        assertFalse(future.isDone());
+        release.countDown();
+
+        assertThrows(CancellationException.class, cancelled.toTry()::get);
+        assertEquals(Integer.valueOf(1), future.toTry().get());
+        assertEquals(Integer.valueOf(4), sibling.toTry().get());
+    }
+
+    @Test
+    void shouldWrapCompletedTry() throws Throwable {
+        assertEquals(Integer.valueOf(3), TryFuture.of(Try.successful(3)).toTry().get());
+        assertThrows(IllegalStateException.class,
+                TryFuture.of(Try.<Integer>failure(new IllegalStateException())).toTry()::get);
+    }
+
+    @Test
+    void shouldNotRunFunctionsAfterFailure() {
+        final AtomicBoolean called = new AtomicBoolean();
+        TryFuture.ofThrowable(() -> Integer.valueOf("T"), executor)
+                .map(n -> { called.set(true); return n; })
+                .toTry();
+        assertFalse(called.get());
+    }
+}
@@ -3,6 +3,7 @@ package se.andolf.tutorials.monads;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -86,4 +87,36 @@ class TryMonadTests {
     void getTheUncheckedException() {
         assertThrows(RuntimeException.class, () -> Try.ofThrowable(() -> Integer.parseInt("T")).getUnchecked());
     }
+
+    @Test
+    void failedTryKeepsSameInstanceWhenMapped() {
+        final Try<Integer> failure = Try.ofThrowable(() -> Integer.valueOf("T"));
+        assertSame(failure, failure.map(n -> n + 1));
+        assertSame(failure, failure.flatMap(n -> Try.ofThrowable(() -> n + 1)));
+    }
+
+    @Test
+    void successfulTryKeepsSameInstanceWhenMappedToSameValue() {
+        final Try<String> success = Try.ofThrowable(() -> "value");
+        assertSame(success, success.map(s -> s));
+        assertNotSame(success, success.map(String::toUpperCase));
+    }
+
+    @Test
+    void filteredTryFailsWithoutStackTrace() {
+        final Try<Integer> filtered = Try.ofThrowable(() -> 5).filter(n -> n > 10);
+        final NoSuchElementException e = assertThrows(NoSuchElementException.class, filtered::get);
+        assertEquals(0, e.getStackTrace().length);
+        assertEquals("Predicate doesn't match for 5", e.getMessage());
+    }
+
+    @Test
+    void filteredTryDescribesTheValueAsItWasFiltered() {
+        final StringBuilder value = new StringBuilder("before");
+        final Try<StringBuilder> filtered = Try.ofThrowable(() -> value).filter(s -> s.length() > 10);
+        value.replace(0, value.length(), "after");
+
+        final NoSuchElementException e = assertThrows(NoSuchElementException.class, filtered::get);
+        assertEquals("Predicate doesn't match for before", e.getMessage());
+    }
 }